@@ -0,0 +1,12 @@
+package com.example.nycschool;
+
+import javax.inject.Singleton;
+
+import dagger.Component;
+
+/** Dagger component that lives for as long as the application process. */
+@Singleton
+@Component(modules = AppModule.class)
+public interface AppComponent {
+    void inject(SchoolListFragment fragment);
+}
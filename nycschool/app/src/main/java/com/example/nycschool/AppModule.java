@@ -0,0 +1,97 @@
+package com.example.nycschool;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import dagger.Module;
+import dagger.Provides;
+
+/** Provides the application-wide dependencies of the data layer. */
+@Module
+public class AppModule {
+    // One thread per data set so both can be fetched at the same time.
+    private static final int BACKGROUND_THREAD_COUNT = 2;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+    private static final int READ_TIMEOUT_MILLIS = 20_000;
+    private static final int MAX_FETCH_ATTEMPTS = 3;
+    private static final long RETRY_BASE_DELAY_MILLIS = 500;
+    private static final long RETRY_MAX_DELAY_MILLIS = 4_000;
+
+    private final Context applicationContext;
+
+    AppModule(Context applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Provides
+    @Named(SchoolDirectoryController.STORAGE_DIRECTORY)
+    File provideStorageDirectory() {
+        return applicationContext.getFilesDir();
+    }
+
+    /**
+     * Opens the snapshot that the generateBundledSnapshot task packs into the assets. It is stored
+     * uncompressed, so the whole of it can be read straight from the APK.
+     */
+    @Provides
+    BundledSnapshot provideBundledSnapshot() {
+        return () -> {
+            try {
+                return applicationContext.getAssets()
+                        .open(BundledSnapshot.ASSET_NAME, AssetManager.ACCESS_BUFFER);
+            } catch (FileNotFoundException e) {
+                // The build had no recorded data to generate the snapshot from.
+                return null;
+            }
+        };
+    }
+
+    @Provides
+    @Singleton
+    HttpTransport provideHttpTransport(Metrics metrics) {
+        return new UrlConnectionTransport(CONNECT_TIMEOUT_MILLIS, READ_TIMEOUT_MILLIS, metrics);
+    }
+
+    /** Keeps the metrics in memory, e.g. for a debug screen to show. */
+    @Provides
+    @Singleton
+    HistogramMetricsSink provideHistogramMetricsSink() {
+        return new HistogramMetricsSink();
+    }
+
+    /** Shows the spans and values in system traces, in addition to keeping them as histograms. */
+    @Provides
+    @Singleton
+    MetricsSink provideMetricsSink(HistogramMetricsSink histogramMetricsSink) {
+        return new TraceMetricsSink(histogramMetricsSink);
+    }
+
+    @Provides
+    RetryPolicy provideRetryPolicy() {
+        return new RetryPolicy(MAX_FETCH_ATTEMPTS, RETRY_BASE_DELAY_MILLIS, RETRY_MAX_DELAY_MILLIS);
+    }
+
+    /**
+     * Loads the SAT data along with the directory. Switch to LAZY_SAT to only load it for the
+     * schools that are looked at, e.g. to compare cold start time and bytes fetched.
+     */
+    @Provides
+    SchoolDirectoryController.LoadingMode provideLoadingMode() {
+        return SchoolDirectoryController.LoadingMode.EAGER_SAT;
+    }
+
+    /** The executor used for all network and disk work so that none of it runs on the UI thread. */
+    @Provides
+    @Singleton
+    ScheduledExecutorService provideBackgroundExecutor() {
+        return Executors.newScheduledThreadPool(BACKGROUND_THREAD_COUNT);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.nycschool;
+
+import android.app.Application;
+
+/** Holds the {@link AppComponent} so that there is one object graph per process. */
+public class NycSchoolApplication extends Application {
+
+    private AppComponent appComponent;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        appComponent = DaggerAppComponent.builder()
+                .appModule(new AppModule(getApplicationContext()))
+                .build();
+    }
+
+    public AppComponent getAppComponent() {
+        return appComponent;
+    }
+}
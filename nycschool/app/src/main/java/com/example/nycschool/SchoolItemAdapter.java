@@ -1,65 +1,409 @@
 package com.example.nycschool;
 
 import android.content.Context;
+import android.content.res.Resources;
+import android.os.Trace;
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.TextView;
 
-import java.util.ArrayList;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.constraintlayout.widget.ConstraintLayout;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 
-public class SchoolItemAdapter extends ArrayAdapter<School> implements View.OnClickListener{
+/**
+ * Adapter for the school list. New lists are diffed against the current one on a background thread
+ * so that a refresh of the directory only rebinds the rows that changed. Whether a row is expanded
+ * is kept here rather than in the row's views, so it survives the row being recycled.
+ *
+ * <p>Each row knows the ordinal of its school in the {@link SchoolDirectory}, so binding and
+ * expanding a row never has to look the school up again.
+ */
+public class SchoolItemAdapter
+        extends ListAdapter<SchoolItemAdapter.Item, SchoolItemAdapter.ViewHolder> {
+
+    /** A row of the list. */
+    public static class Item {
+        final School school;
+        // Position of the school in the directory that the list was created from.
+        final int ordinal;
+        final String key;
+
+        public Item(School school, int ordinal) {
+            this.school = school;
+            this.ordinal = ordinal;
+            this.key = getKey(school);
+        }
+    }
+
+    /** Loads the SAT data of schools whose SAT data is not in the directory. */
+    public interface SatDataLoader {
+        /** Returns Optional.empty() if the SAT data of the school has not been loaded yet. */
+        Optional<SchoolSatData> getLoadedSatData(School school);
+
+        /**
+         * Starts loading the SAT data of the school, and runs one of the callbacks on the UI thread
+         * once it has loaded or failed to load.
+         */
+        void loadSatData(School school, Runnable onLoaded, Runnable onFailed);
+    }
+
+    // Payload for rebinding only the expanded or collapsed state of a row.
+    private static final Object PAYLOAD_EXPANSION = new Object();
+
+    private static final DiffUtil.ItemCallback<Item> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<Item>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+                    return oldItem.key.equals(newItem.key);
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
+                    School oldSchool = oldItem.school;
+                    School newSchool = newItem.school;
+                    return oldSchool.getName().equals(newSchool.getName())
+                            && oldSchool.getOverview().equals(newSchool.getOverview())
+                            && isSameSatData(oldSchool.getSatData(), newSchool.getSatData());
+                }
+            };
 
-    private ArrayList<School> schools;
-    Context context;
+    // Resolved once rather than on every bind.
+    private final String readingScoreLabel;
+    private final String mathScoreLabel;
+    private final String writingScoreLabel;
+    private final String unavailableScore;
+    private final String loadingScore;
+    // Null if the directory contains all SAT data.
+    @Nullable private final SatDataLoader satDataLoader;
 
-    private static class ViewHolder {
-        TextView schoolName;
-        TextView schoolDescription;
+    // Keys of the schools that are expanded.
+    private final HashSet<String> expandedKeys = new HashSet<>();
+    // Keys of the schools whose SAT data is being loaded, so that rebinding a row that is still
+    // loading does not load it again.
+    private final HashSet<String> loadingKeys = new HashSet<>();
+    @Nullable private SchoolDirectory schoolDirectory;
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView schoolName;
+        final TextView schoolDescription;
+        final ConstraintLayout satData;
+        final TextView readingScore;
+        final TextView mathScore;
+        final TextView writingScore;
+        // Reused to format the score text of this row.
+        final StringBuilder scoreText = new StringBuilder();
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            schoolName = itemView.findViewById(R.id.school_name);
+            schoolDescription = itemView.findViewById(R.id.school_description);
+            satData = itemView.findViewById(R.id.sat_data);
+            readingScore = itemView.findViewById(R.id.critical_reading_score);
+            mathScore = itemView.findViewById(R.id.math_score);
+            writingScore = itemView.findViewById(R.id.writing_score);
+        }
     }
 
-    public SchoolItemAdapter(ArrayList<School> schools, Context context) {
-        super(context, R.layout.school_item, schools);
-        this.schools = schools;
-        this.context = context;
+    public SchoolItemAdapter(Context context, @Nullable SatDataLoader satDataLoader) {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
+        this.satDataLoader = satDataLoader;
+        Resources resources = context.getResources();
+        readingScoreLabel = resources.getString(R.string.average_critical_reading_score);
+        mathScoreLabel = resources.getString(R.string.average_math_score);
+        writingScoreLabel = resources.getString(R.string.average_writing_score);
+        unavailableScore = resources.getString(R.string.unavailable_score);
+        loadingScore = resources.getString(R.string.loading_score);
+    }
 
+    /**
+     * Shows the rows, whose ordinals must all be from the given directory. The SAT scores are read
+     * from the directory, so it only replaces the current one once the new list has been applied.
+     * The callback, if any, is run at that point too.
+     */
+    public void submitSchools(
+            SchoolDirectory schoolDirectory, List<Item> items, @Nullable Runnable onCommitted) {
+        submitList(items, () -> {
+            SchoolDirectory previousSchoolDirectory = this.schoolDirectory;
+            this.schoolDirectory = schoolDirectory;
+            if (previousSchoolDirectory != null && previousSchoolDirectory != schoolDirectory) {
+                rebindExpandedItems();
+            }
+            if (onCommitted != null) {
+                onCommitted.run();
+            }
+        });
     }
 
     @Override
-    public void onClick(View v) {
-        // Do nothing.
+    public long getItemId(int position) {
+        return getStableId(getItem(position).key);
     }
 
+    @NonNull
     @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-        School school = getItem(position);
-        ViewHolder viewHolder;
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.school_item, parent, false);
+        ViewHolder viewHolder = new ViewHolder(view);
+        view.setOnClickListener(v -> {
+            int position = viewHolder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) {
+                return;
+            }
+            Trace.beginSection("SchoolItemAdapter#toggleItem");
+            String key = getItem(position).key;
+            if (!expandedKeys.remove(key)) {
+                expandedKeys.add(key);
+            }
+            notifyItemChanged(position, PAYLOAD_EXPANSION);
+            Trace.endSection();
+        });
+        return viewHolder;
+    }
 
-        if (convertView == null) {
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder viewHolder, int position) {
+        Trace.beginSection("SchoolItemAdapter#onBindViewHolder");
+        Item item = getItem(position);
+        viewHolder.schoolName.setText(item.school.getName());
+        // The overview text itself is bound with the expanded state.
+        viewHolder.schoolDescription.setVisibility(
+                item.school.getOverview().isPresent() ? View.VISIBLE : View.GONE);
+        bindExpansion(viewHolder, item);
+        Trace.endSection();
+    }
 
-            viewHolder = new ViewHolder();
-            LayoutInflater inflater = LayoutInflater.from(getContext());
-            convertView = inflater.inflate(R.layout.school_item, parent, false);
-            viewHolder.schoolName = convertView.findViewById(R.id.school_name);
-            viewHolder.schoolDescription = convertView.findViewById(R.id.school_description);
+    @Override
+    public void onBindViewHolder(
+            @NonNull ViewHolder viewHolder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.get(payloads.size() - 1) == PAYLOAD_EXPANSION) {
+            // Only the expanded state changed, so the name is still bound.
+            Trace.beginSection("SchoolItemAdapter#bindExpansion");
+            bindExpansion(viewHolder, getItem(position));
+            Trace.endSection();
+        } else {
+            onBindViewHolder(viewHolder, position);
+        }
+    }
 
-            convertView.setTag(viewHolder);
+    private void bindExpansion(ViewHolder viewHolder, Item item) {
+        if (expandedKeys.contains(item.key)) {
+            expandItem(viewHolder, item);
         } else {
-            viewHolder = (ViewHolder) convertView.getTag();
+            collapseItem(viewHolder, item);
         }
+    }
 
+    /**
+     * "Expands" the view by showing all the overview text and making the SAT score views visible.
+     */
+    private void expandItem(ViewHolder viewHolder, Item item) {
+        // Show all of the overview text. It is only decoded here, since it is not needed before.
+        item.school.getOverview()
+                .ifPresent(overview -> viewHolder.schoolDescription.setText(overview.getText()));
+        viewHolder.schoolDescription.setMaxLines(Integer.MAX_VALUE);
+        viewHolder.schoolDescription.setEllipsize(null);
+
+        setVisibilityForSatScores(viewHolder, /*isVisible=*/ true);
+        if (satDataLoader != null && !hasDirectorySatData(item)) {
+            bindLoadedSatData(viewHolder, item);
+            return;
+        }
+        setTextForSatScore(
+                viewHolder,
+                viewHolder.readingScore,
+                readingScoreLabel,
+                getSatScore(SatScores.Field.AVG_READING_SCORE, item.ordinal),
+                getRank(SchoolQuery.Key.AVG_READING_SCORE, item.ordinal));
+        setTextForSatScore(
+                viewHolder,
+                viewHolder.mathScore,
+                mathScoreLabel,
+                getSatScore(SatScores.Field.AVG_MATH_SCORE, item.ordinal),
+                getRank(SchoolQuery.Key.AVG_MATH_SCORE, item.ordinal));
+        setTextForSatScore(
+                viewHolder,
+                viewHolder.writingScore,
+                writingScoreLabel,
+                getSatScore(SatScores.Field.AVG_WRITING_SCORE, item.ordinal),
+                getRank(SchoolQuery.Key.AVG_WRITING_SCORE, item.ordinal));
+    }
+
+    private boolean hasDirectorySatData(Item item) {
+        return schoolDirectory != null && schoolDirectory.getSatScores().hasSatData(item.ordinal);
+    }
 
-        viewHolder.schoolName.setText(school.getName());
-        Optional<String> overview = school.getOverview();
-        if (overview.isPresent()) {
-            viewHolder.schoolDescription.setText(overview.get());
-            viewHolder.schoolDescription.setVisibility(View.VISIBLE);
+    /**
+     * Binds the SAT data from the loader, or starts loading it unless it is already loading and
+     * rebinds the school's row once it has loaded, if the school is still in the list by then.
+     */
+    private void bindLoadedSatData(ViewHolder viewHolder, Item item) {
+        Optional<SchoolSatData> loadedSatData = satDataLoader.getLoadedSatData(item.school);
+        if (!loadedSatData.isPresent()) {
+            viewHolder.readingScore.setText(loadingScore);
+            viewHolder.mathScore.setText(loadingScore);
+            viewHolder.writingScore.setText(loadingScore);
+            if (loadingKeys.add(item.key)) {
+                satDataLoader.loadSatData(
+                        item.school,
+                        () -> {
+                            loadingKeys.remove(item.key);
+                            // Looked up by key, since the row may have been rebound to another view
+                            // holder in the meantime.
+                            int position = indexOfKey(item.key);
+                            if (position >= 0) {
+                                notifyItemChanged(position, PAYLOAD_EXPANSION);
+                            }
+                        },
+                        // The row keeps showing that the scores are loading, and loading is tried
+                        // again the next time it is bound.
+                        () -> loadingKeys.remove(item.key));
+            }
+            return;
+        }
+        SchoolSatData satData = loadedSatData.get();
+        setTextForSatScore(
+                viewHolder,
+                viewHolder.readingScore,
+                readingScoreLabel,
+                satData.getAvgReadingScore().orElse(SatScores.MISSING),
+                SatScores.MISSING);
+        setTextForSatScore(
+                viewHolder,
+                viewHolder.mathScore,
+                mathScoreLabel,
+                satData.getAvgMathScore().orElse(SatScores.MISSING),
+                SatScores.MISSING);
+        setTextForSatScore(
+                viewHolder,
+                viewHolder.writingScore,
+                writingScoreLabel,
+                satData.getAvgWritingScore().orElse(SatScores.MISSING),
+                SatScores.MISSING);
+    }
+
+    /**
+     * Rebinds the SAT scores of the expanded rows. The diff leaves out the ranks, since a change to
+     * the scores of any school can change the ranks of every other one, so a row whose own school
+     * did not change would otherwise keep showing its ranks in the previous directory. Only
+     * expanded rows show ranks, so only those are rebound.
+     */
+    private void rebindExpandedItems() {
+        for (String key : expandedKeys) {
+            int position = indexOfKey(key);
+            if (position >= 0) {
+                notifyItemChanged(position, PAYLOAD_EXPANSION);
+            }
+        }
+    }
+
+    /** Returns the position of the school with the key, or -1 if it is not in the list. */
+    private int indexOfKey(String key) {
+        List<Item> items = getCurrentList();
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).key.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int getSatScore(SatScores.Field field, int ordinal) {
+        return schoolDirectory == null
+                ? SatScores.MISSING
+                : schoolDirectory.getSatScores().get(field, ordinal);
+    }
+
+    /** Returns the rank of the school among all schools in the directory, see SchoolRankings. */
+    private int getRank(SchoolQuery.Key key, int ordinal) {
+        return schoolDirectory == null
+                ? SatScores.MISSING
+                : schoolDirectory.getRankings().getRank(key, ordinal);
+    }
+
+    /**
+     * Sets the text for the score and its rank, either of which is {@link SatScores#MISSING} if
+     * unavailable.
+     */
+    private void setTextForSatScore(
+            ViewHolder viewHolder, TextView view, String label, int score, int rank) {
+        StringBuilder scoreText = viewHolder.scoreText;
+        scoreText.setLength(0);
+        scoreText.append(label).append(' ');
+        if (score == SatScores.MISSING) {
+            scoreText.append(unavailableScore);
         } else {
-            viewHolder.schoolDescription.setVisibility(View.GONE);
+            scoreText.append(score);
+            if (rank != SatScores.MISSING) {
+                scoreText.append(" (#").append(rank).append(')');
+            }
         }
+        view.setText(scoreText);
+    }
 
-        return convertView;
+    /**
+     * "Collapses" the view by hiding the SAT score views and truncating the overview text.
+     */
+    private void collapseItem(ViewHolder viewHolder, Item item) {
+        // Truncate the overview text. The preview is usually already shorter than two lines.
+        item.school.getOverview()
+                .ifPresent(overview -> viewHolder.schoolDescription.setText(overview.getPreview()));
+        viewHolder.schoolDescription.setMaxLines(2);
+        viewHolder.schoolDescription.setEllipsize(TextUtils.TruncateAt.END);
+
+        setVisibilityForSatScores(viewHolder, /*isVisible=*/ false);
+    }
+
+    private void setVisibilityForSatScores(ViewHolder viewHolder, boolean isVisible) {
+        ConstraintLayout constraintLayout = viewHolder.satData;
+        ConstraintLayout.LayoutParams layoutParams = (ConstraintLayout.LayoutParams) constraintLayout.getLayoutParams();
+        if (isVisible) {
+            layoutParams.height = ViewGroup.LayoutParams.WRAP_CONTENT;
+            constraintLayout.setLayoutParams(layoutParams);
+            constraintLayout.setVisibility(View.VISIBLE);
+        } else {
+            layoutParams.height = 1;
+            constraintLayout.setLayoutParams(layoutParams);
+            constraintLayout.setVisibility(View.INVISIBLE);
+        }
+    }
+
+    /** Identifies the school across directory refreshes. The DBN is unique, but may be missing. */
+    private static String getKey(School school) {
+        return school.getDbn().orElse(school.getName());
+    }
+
+    /** 64-bit FNV-1a hash of the key, so that collisions between schools are very unlikely. */
+    private static long getStableId(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static boolean isSameSatData(
+            Optional<SchoolSatData> oldSatData, Optional<SchoolSatData> newSatData) {
+        if (!oldSatData.isPresent() || !newSatData.isPresent()) {
+            return oldSatData.isPresent() == newSatData.isPresent();
+        }
+        SchoolSatData oldScores = oldSatData.get();
+        SchoolSatData newScores = newSatData.get();
+        return oldScores.getNumTestTakers().equals(newScores.getNumTestTakers())
+                && oldScores.getAvgReadingScore().equals(newScores.getAvgReadingScore())
+                && oldScores.getAvgMathScore().equals(newScores.getAvgMathScore())
+                && oldScores.getAvgWritingScore().equals(newScores.getAvgWritingScore());
     }
 }
@@ -1,51 +1,162 @@
 package com.example.nycschool;
 
+import android.content.Context;
 import android.os.Bundle;
-import android.text.TextUtils;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AdapterView;
-import android.widget.ListView;
-import android.widget.TextView;
+import android.widget.EditText;
+import android.widget.Spinner;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.constraintlayout.widget.ConstraintLayout;
-import androidx.fragment.app.ListFragment;
+import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
+import javax.inject.Inject;
+
+import rx.Subscription;
 import rx.android.schedulers.AndroidSchedulers;
+import rx.subscriptions.CompositeSubscription;
+
+public class SchoolListFragment extends Fragment {
+    // How close to the end of the list the user has to scroll before the next page is requested.
+    private static final int NEXT_PAGE_THRESHOLD = 20;
+    // How many rows before and after the visible ones have their SAT data prefetched.
+    private static final int PREFETCH_DISTANCE = 10;
+    // The key of each entry of the sort order spinner, see R.array.sort_orders.
+    private static final SchoolQuery.Key[] SORT_KEYS = {
+            SchoolQuery.Key.NAME,
+            SchoolQuery.Key.COMPOSITE_SCORE,
+            SchoolQuery.Key.AVG_MATH_SCORE,
+            SchoolQuery.Key.AVG_READING_SCORE,
+            SchoolQuery.Key.AVG_WRITING_SCORE,
+            SchoolQuery.Key.NUM_TEST_TAKERS
+    };
 
-public class SchoolListFragment extends ListFragment implements AdapterView.OnItemClickListener {
+    @Inject SchoolDirectoryController schoolDirectoryController;
+    // Shared background executor, so we don't fetch data on the main/UI thread.
+    @Inject ScheduledExecutorService backgroundExecutor;
+    @Inject Metrics metrics;
 
     SchoolDirectory schoolDirectory;
+    // Reused for every search so that typing in the search box does not allocate.
+    private SchoolSearchResult searchResult;
+    private SchoolQuery query = SchoolQuery.ALL;
+    private SchoolItemAdapter adapter;
+    // The rows last submitted to the adapter, which may still be being diffed.
+    @Nullable private List<SchoolItemAdapter.Item> shownItems;
+    private RecyclerView schoolList;
+    private boolean hasMorePages;
+    @Nullable private Subscription directorySubscription;
+    // The SAT data loads of the rows. Each is removed once done, and the rest are unsubscribed from
+    // when the view is destroyed, so that they do not hold on to the rows.
+    private final CompositeSubscription satDataLoads = new CompositeSubscription();
+    // Ended once the first schools are shown.
+    @Nullable private Metrics.Span firstRenderSpan;
+
+    @Override
+    public void onAttach(@NonNull Context context) {
+        super.onAttach(context);
+        ((NycSchoolApplication) context.getApplicationContext()).getAppComponent().inject(this);
+    }
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
+        firstRenderSpan = metrics.startSpan(Metrics.TIME_TO_FIRST_RENDER);
         View view = inflater.inflate(R.layout.school_list_fragment, container, false);
-        SchoolDirectoryController schoolDirectoryController = new SchoolDirectoryController();
-        // Specify a new scheduler, so we don't fetch data on the main/UI thread.
-        schoolDirectoryController.initialize(Executors.newScheduledThreadPool(1))
+        adapter = new SchoolItemAdapter(requireContext(), createSatDataLoader());
+        schoolList = view.findViewById(R.id.school_list);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        schoolList.setLayoutManager(layoutManager);
+        schoolList.setHasFixedSize(true);
+        schoolList.setAdapter(adapter);
+        schoolList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    prefetchSatData(
+                            layoutManager.findFirstVisibleItemPosition(),
+                            layoutManager.findLastVisibleItemPosition());
+                }
+            }
+
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // Load the rest of the directory as the user scrolls towards the end of it.
+                if (hasMorePages && layoutManager.findLastVisibleItemPosition()
+                        >= adapter.getItemCount() - NEXT_PAGE_THRESHOLD) {
+                    schoolDirectoryController.loadNextPage();
+                }
+            }
+        });
+
+        EditText searchBox = view.findViewById(R.id.search);
+        searchBox.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable text) {
+                query = query.withText(text);
+                showSchools(/*scrollToTop=*/ false);
+            }
+        });
+
+        // Also called with the restored selection when the view is recreated.
+        Spinner sortOrder = view.findViewById(R.id.sort_order);
+        sortOrder.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                if (query.getSortKey() != SORT_KEYS[position]) {
+                    query = query.sortedBy(SORT_KEYS[position]);
+                    showSchools(/*scrollToTop=*/ true);
+                }
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {}
+        });
+
+        // The controller is shared across the process, so recreating the view attaches to the
+        // directory that is already loaded (or loading) instead of fetching it again.
+        directorySubscription = schoolDirectoryController.initialize(backgroundExecutor)
                 // This will update the UI thread so make sure it receives the result on the UI thread.
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(
-                        schoolDirectory -> {
-                            if (!schoolDirectory.isPresent()) {
+                        result -> {
+                            if (!result.getUpdate().isPresent()) {
                                 // TODO(amanda): If allotted more time, show error UI to replace the
-                                //  loading spinner.
+                                //  loading spinner. result.getError() tells what went wrong.
                             } else {
                                 // Update the UI to replace the loading spinner (if loading spinner
-                                // is implemented).
-                                this.schoolDirectory = schoolDirectory.get();
-                                ArrayList<School> schools = schoolDirectory.get().getSchools();
-                                SchoolItemAdapter adapter =
-                                        new SchoolItemAdapter(schools, getContext());
-                                ListView listView = view.findViewById(android.R.id.list);
-                                listView.setAdapter(adapter);
-                                listView.setOnItemClickListener(this);
+                                // is implemented). This may be called a second time if the stored
+                                // directory was shown first and then found to be out of date, once
+                                // for every page of the directory, and for every refresh. Only the
+                                // rows that changed are updated.
+                                SchoolDirectoryUpdate update = result.getUpdate().get();
+                                SchoolDirectory previousSchoolDirectory = this.schoolDirectory;
+                                this.schoolDirectory = update.getSchoolDirectory();
+                                hasMorePages = update.hasMorePages();
+                                if (canShowChangedSchools(previousSchoolDirectory)) {
+                                    showChangedSchools(update.getChangedSchools());
+                                } else {
+                                    searchResult = this.schoolDirectory.newSearchResult();
+                                    showSchools(/*scrollToTop=*/ false);
+                                }
                             }
                         }
                 );
@@ -53,88 +164,140 @@ public class SchoolListFragment extends ListFragment implements AdapterView.OnIt
     }
 
     @Override
-    public void onItemClick(AdapterView<?> adapterView, View view, int i, long l) {
-        if (view.findViewById(R.id.sat_data).getVisibility() == View.INVISIBLE) {
-            expandItem(view);
-        } else {
-            collapseItem(view);
+    public void onDestroyView() {
+        if (directorySubscription != null) {
+            directorySubscription.unsubscribe();
+            directorySubscription = null;
         }
+        satDataLoads.clear();
+        // The next view starts out with an empty list.
+        shownItems = null;
+        if (firstRenderSpan != null) {
+            // Nothing was shown, so there is no time to first render to record.
+            firstRenderSpan.cancel();
+            firstRenderSpan = null;
+        }
+        super.onDestroyView();
     }
 
     /**
-     * "Expands" the view by showing all the overview text and making the SAT score views visible.
+     * Returns null if the SAT data is loaded along with the directory. Otherwise, returns a loader
+     * that fetches the SAT data of a school when its row is expanded.
      */
-    private void expandItem(View view) {
-        String schoolName = ((TextView) view.findViewById(R.id.school_name)).getText().toString();
-        Optional<School> optionalSchool = schoolDirectory.getSchoolData(schoolName);
-        if (!optionalSchool.isPresent()) {
-            return;
+    @Nullable
+    private SchoolItemAdapter.SatDataLoader createSatDataLoader() {
+        if (schoolDirectoryController.getLoadingMode()
+                != SchoolDirectoryController.LoadingMode.LAZY_SAT) {
+            return null;
         }
+        return new SchoolItemAdapter.SatDataLoader() {
+            @Override
+            public Optional<SchoolSatData> getLoadedSatData(School school) {
+                return schoolDirectoryController.getLoadedSatData(school);
+            }
 
-        // Show all of the overview text.
-        TextView overview = view.findViewById(R.id.school_description);
-        overview.setMaxLines(Integer.MAX_VALUE);
-        overview.setEllipsize(null);
-
-        setVisibilityForSatScores(view, /*isVisible=*/ true);
-        Optional<SchoolSatData> schoolSatDataOptional = optionalSchool.get().getSatData();
-        Integer readingScore = null;
-        Integer mathScore = null;
-        Integer writingScore = null;
-        if (schoolSatDataOptional.isPresent()) {
-            SchoolSatData schoolSatData = schoolSatDataOptional.get();
-            readingScore = schoolSatData.getAvgReadingScore().orElse(null);
-            mathScore = schoolSatData.getAvgMathScore().orElse(null);
-            writingScore = schoolSatData.getAvgWritingScore().orElse(null);
-        }
-        setTextForSatScore(
-                view.findViewById(R.id.critical_reading_score),
-                R.string.average_critical_reading_score,
-                readingScore);
-        setTextForSatScore(
-                view.findViewById(R.id.math_score),
-                R.string.average_math_score,
-                mathScore);
-        setTextForSatScore(
-                view.findViewById(R.id.writing_score),
-                R.string.average_writing_score,
-                writingScore);
+            @Override
+            public void loadSatData(School school, Runnable onLoaded, Runnable onFailed) {
+                // The callbacks are posted to the UI thread, so they always run after the
+                // subscription has been assigned.
+                Subscription[] load = new Subscription[1];
+                load[0] = schoolDirectoryController.loadSatData(school, backgroundExecutor)
+                        .observeOn(AndroidSchedulers.mainThread())
+                        .subscribe(
+                                satData -> {
+                                    satDataLoads.remove(load[0]);
+                                    onLoaded.run();
+                                },
+                                error -> {
+                                    satDataLoads.remove(load[0]);
+                                    onFailed.run();
+                                });
+                satDataLoads.add(load[0]);
+            }
+        };
     }
 
-    private void setTextForSatScore(TextView view, int stringId, @Nullable Integer score) {
-        String string = getResources().getText(stringId).toString() + " ";
-        if (score == null) {
-            string += getString(R.string.unavailable_score);
-        } else {
-            string += score;
+    /**
+     * In the lazy loading mode, prefetches the SAT data of the visible rows and of the rows around
+     * them, so it is usually ready by the time a row is expanded.
+     */
+    private void prefetchSatData(int firstVisiblePosition, int lastVisiblePosition) {
+        if (schoolDirectoryController.getLoadingMode()
+                != SchoolDirectoryController.LoadingMode.LAZY_SAT
+                || firstVisiblePosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+        List<SchoolItemAdapter.Item> items = adapter.getCurrentList();
+        int start = Math.max(0, firstVisiblePosition - PREFETCH_DISTANCE);
+        int end = Math.min(items.size(), lastVisiblePosition + 1 + PREFETCH_DISTANCE);
+        ArrayList<School> schools = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            schools.add(items.get(i).school);
         }
-        view.setText(string);
+        schoolDirectoryController.prefetchSatData(schools, backgroundExecutor);
     }
 
     /**
-     * "Collapses" the view by hiding the SAT score views and truncating the overview text.
+     * Shows the schools that match the query, in its sort order. The order is precomputed by the
+     * directory, so this is cheap enough to do on every keystroke.
      */
-    private void collapseItem(View view) {
-        // Truncate the overview text.
-        TextView overview = view.findViewById(R.id.school_description);
-        overview.setMaxLines(2);
-        overview.setEllipsize(TextUtils.TruncateAt.END);
+    private void showSchools(boolean scrollToTop) {
+        if (schoolDirectory == null) {
+            return;
+        }
+        schoolDirectory.query(query, searchResult);
+        ArrayList<SchoolItemAdapter.Item> items = new ArrayList<>(searchResult.size());
+        for (int i = 0; i < searchResult.size(); i++) {
+            int ordinal = searchResult.getOrdinal(i);
+            items.add(new SchoolItemAdapter.Item(schoolDirectory.getSchool(ordinal), ordinal));
+        }
+        shownItems = items;
+        adapter.submitSchools(schoolDirectory, items, () -> {
+            if (scrollToTop) {
+                schoolList.scrollToPosition(0);
+            }
+            onSchoolsShown();
+        });
+    }
 
-        setVisibilityForSatScores(view, /*isVisible=*/ false);
+    /**
+     * Returns true if the rows shown for the previous directory can be kept for the current one,
+     * replacing only the changed schools. That is the case if every school kept its ordinal and
+     * thus its name, and the query matches and orders the schools by name only.
+     */
+    private boolean canShowChangedSchools(@Nullable SchoolDirectory previousSchoolDirectory) {
+        return previousSchoolDirectory != null
+                && shownItems != null
+                && schoolDirectory.sharesOrdinalsWith(previousSchoolDirectory)
+                && query.getSortKey() == SchoolQuery.Key.NAME
+                && !query.hasMinimums();
     }
 
-    private void setVisibilityForSatScores(View view, boolean isVisible) {
-        ConstraintLayout constraintLayout = view.findViewById(R.id.sat_data);
-        ConstraintLayout.LayoutParams layoutParams = (ConstraintLayout.LayoutParams) constraintLayout.getLayoutParams();
-        if (isVisible) {
-            layoutParams.height = ViewGroup.LayoutParams.WRAP_CONTENT;
-            constraintLayout.setLayoutParams(layoutParams);
-            constraintLayout.setVisibility(View.VISIBLE);
-        } else {
-            layoutParams.height = 1;
-            constraintLayout.setLayoutParams(layoutParams);
-            constraintLayout.setVisibility(View.INVISIBLE);
+    /**
+     * Shows the changed schools in place of the rows they replace, without querying the directory
+     * again. The other rows are kept as they are.
+     */
+    private void showChangedSchools(List<School> changedSchools) {
+        HashMap<Integer, School> changedSchoolsByOrdinal = new HashMap<>();
+        for (School school : changedSchools) {
+            changedSchoolsByOrdinal.put(schoolDirectory.indexOf(school.getName()), school);
         }
+        ArrayList<SchoolItemAdapter.Item> items = new ArrayList<>(shownItems);
+        for (int i = 0; i < items.size(); i++) {
+            int ordinal = items.get(i).ordinal;
+            School changedSchool = changedSchoolsByOrdinal.get(ordinal);
+            if (changedSchool != null) {
+                items.set(i, new SchoolItemAdapter.Item(changedSchool, ordinal));
+            }
+        }
+        shownItems = items;
+        adapter.submitSchools(schoolDirectory, items, this::onSchoolsShown);
+    }
 
+    private void onSchoolsShown() {
+        if (firstRenderSpan != null && adapter.getItemCount() > 0) {
+            firstRenderSpan.end();
+            firstRenderSpan = null;
+        }
     }
 }
@@ -0,0 +1,58 @@
+package com.example.nycschool;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Shows the spans of {@link Metrics} as async trace sections and its values as trace counters, so
+ * they can be seen in Perfetto or systrace next to the rest of the app. Async sections are used
+ * since spans may end on another thread than they started on. Everything is also passed on to
+ * another sink.
+ *
+ * <p>Tracing needs API level 29. On older versions this only passes everything on.
+ */
+class TraceMetricsSink implements MetricsSink {
+    private final MetricsSink delegate;
+
+    TraceMetricsSink(MetricsSink delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void onSpanStarted(String name, int spanId) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(name, spanId);
+        }
+        delegate.onSpanStarted(name, spanId);
+    }
+
+    @Override
+    public void onSpanEnded(String name, int spanId, long durationNanos) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(name, spanId);
+        }
+        delegate.onSpanEnded(name, spanId, durationNanos);
+    }
+
+    @Override
+    public void onSpanCancelled(String name, int spanId) {
+        // The section still has to end, or it would stay open in the trace.
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(name, spanId);
+        }
+        delegate.onSpanCancelled(name, spanId);
+    }
+
+    @Override
+    public void onValue(String name, long value) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.setCounter(name, value);
+        }
+        delegate.onValue(name, value);
+    }
+
+    @Override
+    public void onLoadError(LoadError error) {
+        delegate.onLoadError(error);
+    }
+}
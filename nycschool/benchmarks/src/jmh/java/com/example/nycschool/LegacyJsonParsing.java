@@ -0,0 +1,105 @@
+package com.example.nycschool;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
+
+/**
+ * The parsing the type adapters replaced: the whole body is read into a String, parsed into an
+ * org.json {@link JSONArray}, and only then turned into schools, one {@link JSONObject} at a time.
+ * It builds the same schools as {@link SchoolTypeAdapter} and {@link SatRecordTypeAdapter}, so that
+ * only the parsing differs between the two.
+ */
+final class LegacyJsonParsing {
+    private LegacyJsonParsing() {}
+
+    /** Returns the number of records. */
+    static int parseSchoolDirectory(InputStream body, Consumer<School> consumer)
+            throws IOException {
+        JSONArray directoryObject = readJsonArray(body);
+        Overview.Allocator overviewAllocator = new Overview.Allocator();
+        for (int i = 0; i < directoryObject.length(); i++) {
+            try {
+                JSONObject jsonObject = directoryObject.getJSONObject(i);
+                School.Builder school = School.builder()
+                        .setName(jsonObject.getString("school_name"))
+                        .setDbn(jsonObject.optString("dbn", null))
+                        .setUpdatedAt(
+                                jsonObject.optString(SchoolDirectoryController.UPDATED_AT, null));
+                String borough = jsonObject.optString("borough", null);
+                if (borough != null) {
+                    school.setBorough(borough.trim());
+                }
+                String overview = jsonObject.getString("overview_paragraph");
+                if (overview.length() != 0) {
+                    school.setOverview(overviewAllocator.of(overview));
+                }
+                consumer.accept(school.build());
+            } catch (JSONException e) {
+                // Swallow, like the old parsing did.
+            }
+        }
+        return directoryObject.length();
+    }
+
+    /** Returns the number of records. */
+    static int parseSatData(InputStream body, Consumer<School> consumer) throws IOException {
+        JSONArray satObject = readJsonArray(body);
+        for (int i = 0; i < satObject.length(); i++) {
+            try {
+                JSONObject jsonObject = satObject.getJSONObject(i);
+                SchoolSatData.Builder satData = SchoolSatData.builder();
+                getSatScore(jsonObject, "num_of_sat_test_takers")
+                        .ifPresent(satData::setNumTestTakers);
+                getSatScore(jsonObject, "sat_critical_reading_avg_score")
+                        .ifPresent(satData::setAvgReadingScore);
+                getSatScore(jsonObject, "sat_math_avg_score")
+                        .ifPresent(satData::setAvgMathScore);
+                getSatScore(jsonObject, "sat_writing_avg_score")
+                        .ifPresent(satData::setAvgWritingScore);
+                consumer.accept(School.builder()
+                        .setName(jsonObject.getString("school_name"))
+                        .setDbn(jsonObject.optString("dbn", null))
+                        .setUpdatedAt(
+                                jsonObject.optString(SchoolDirectoryController.UPDATED_AT, null))
+                        .setSatData(satData.build())
+                        .build());
+            } catch (JSONException e) {
+                // Swallow, like the old parsing did.
+            }
+        }
+        return satObject.length();
+    }
+
+    private static JSONArray readJsonArray(InputStream body) throws IOException {
+        StringBuilder stringBuffer = new StringBuilder();
+        try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(body))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                stringBuffer.append(line).append("\n");
+            }
+        }
+        try {
+            return new JSONArray(stringBuffer.toString());
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+    }
+
+    // It's possible for the input for the expected integer is "s", so the score is left unset
+    // if it is not an integer.
+    private static OptionalInt getSatScore(JSONObject jsonObject, String scoreName) {
+        try {
+            return OptionalInt.of(Integer.parseInt(jsonObject.getString(scoreName)));
+        } catch (JSONException | NumberFormatException e) {
+            return OptionalInt.empty();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.nycschool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * Measures streaming both data sets through their type adapters, the way {@link JsonFetcher} does
+ * with a response body, against the org.json parsing they replaced as a baseline. The JSON is held
+ * in memory, so the network is not part of the measurement.
+ *
+ * <p>Every invocation parses a whole data set, but counts as one operation per record, so the
+ * throughput is in records per second and the gc profiler's gc.alloc.rate.norm is in bytes
+ * allocated per record.
+ */
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+    // Large enough for the cost per record to settle, small enough for the org.json tree to fit.
+    private static final int SCALE = 100;
+    private static final int DIRECTORY_RECORDS = SocrataFixtures.DIRECTORY_RECORDS * SCALE;
+    private static final int SAT_RECORDS = SocrataFixtures.SAT_RECORDS * SCALE;
+
+    private final SchoolTypeAdapter schoolAdapter = new SchoolTypeAdapter();
+    private final SatRecordTypeAdapter satRecordAdapter = new SatRecordTypeAdapter();
+    private byte[] schoolDirectoryJson;
+    private byte[] satDataJson;
+
+    @Setup
+    public void setUp() {
+        schoolDirectoryJson = SocrataFixtures.schoolDirectoryJson(SCALE);
+        satDataJson = SocrataFixtures.satDataJson(SCALE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DIRECTORY_RECORDS)
+    public int parseSchoolDirectory(Blackhole blackhole) throws IOException {
+        return JsonFetcher.readRecords(
+                new ByteArrayInputStream(schoolDirectoryJson), schoolAdapter, blackhole::consume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DIRECTORY_RECORDS)
+    public int parseSchoolDirectoryWithOrgJson(Blackhole blackhole) throws IOException {
+        return LegacyJsonParsing.parseSchoolDirectory(
+                new ByteArrayInputStream(schoolDirectoryJson), blackhole::consume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAT_RECORDS)
+    public int parseSatData(Blackhole blackhole) throws IOException {
+        return JsonFetcher.readRecords(
+                new ByteArrayInputStream(satDataJson), satRecordAdapter, blackhole::consume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAT_RECORDS)
+    public int parseSatDataWithOrgJson(Blackhole blackhole) throws IOException {
+        return LegacyJsonParsing.parseSatData(
+                new ByteArrayInputStream(satDataJson), blackhole::consume);
+    }
+}
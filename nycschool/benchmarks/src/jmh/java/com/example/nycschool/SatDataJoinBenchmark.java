@@ -0,0 +1,32 @@
+package com.example.nycschool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+/** Measures joining the parsed SAT records onto the parsed directory schools. */
+@State(Scope.Benchmark)
+public class SatDataJoinBenchmark {
+    @Param({"1", "100", "1000"})
+    public int scale;
+
+    private HashMap<String, School> directorySchools;
+    private HashMap<String, School> satRecords;
+
+    @Setup
+    public void setUp() throws IOException {
+        directorySchools =
+                SocrataFixtures.parseSchoolDirectory(SocrataFixtures.schoolDirectoryJson(scale));
+        satRecords = SocrataFixtures.parseSatData(SocrataFixtures.satDataJson(scale));
+    }
+
+    @Benchmark
+    public SatDataJoin join() {
+        return SatDataJoin.join(directorySchools, satRecords);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.nycschool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Measures building a {@link SchoolDirectory} from the joined schools, and the lookups the list
+ * screen makes on it.
+ */
+@State(Scope.Benchmark)
+public class SchoolDirectoryBenchmark {
+    // Typed one character at a time, the way the search field sends them.
+    private static final String[] QUERIES =
+            {"s", "sc", "sci", "scie", "science", "science h", "science high"};
+
+    private static final int CHANGED_SCHOOL_COUNT = 10;
+    // The top schools by math score among those with enough test takers to count.
+    private static final SchoolQuery TOP_MATH_QUERY = SchoolQuery.ALL
+            .sortedBy(SchoolQuery.Key.AVG_MATH_SCORE)
+            .withMinimum(SchoolQuery.Key.NUM_TEST_TAKERS, 50);
+
+    @Param({"1", "100", "1000"})
+    public int scale;
+
+    private HashMap<String, School> schoolDirectoryMap;
+    private SchoolDirectory schoolDirectory;
+    private SchoolSearchResult searchResult;
+    private String[] names;
+    private List<School> changedSchools;
+    private int nextName;
+
+    @Setup
+    public void setUp() throws IOException {
+        schoolDirectoryMap = SatDataJoin.join(
+                SocrataFixtures.parseSchoolDirectory(SocrataFixtures.schoolDirectoryJson(scale)),
+                SocrataFixtures.parseSatData(SocrataFixtures.satDataJson(scale)))
+                .getSchoolDirectory();
+        schoolDirectory = new SchoolDirectory(/*version=*/ 1, schoolDirectoryMap);
+        searchResult = schoolDirectory.newSearchResult();
+        names = schoolDirectoryMap.keySet().toArray(new String[0]);
+        changedSchools = new ArrayList<>();
+        for (int i = 0; i < CHANGED_SCHOOL_COUNT; i++) {
+            changedSchools.add(schoolDirectory.getSchool(i * schoolDirectory.size()
+                    / CHANGED_SCHOOL_COUNT).withSatData(SchoolSatData.EMPTY));
+        }
+    }
+
+    @Benchmark
+    public SchoolDirectory create() {
+        return new SchoolDirectory(/*version=*/ 1, schoolDirectoryMap);
+    }
+
+    /** Applies a refresh that changed the SAT data of a few schools. */
+    @Benchmark
+    public SchoolDirectory withChangedSchools() {
+        return schoolDirectory.withChangedSchools(/*version=*/ 2, changedSchools);
+    }
+
+    @Benchmark
+    public void getSchools(Blackhole blackhole) {
+        for (School school : schoolDirectory.getSchools()) {
+            blackhole.consume(school);
+        }
+    }
+
+    @Benchmark
+    public Object getSchoolData() {
+        String name = names[nextName];
+        nextName = (nextName + 1) % names.length;
+        return schoolDirectory.getSchoolData(name);
+    }
+
+    @Benchmark
+    public int search() {
+        int matchCount = 0;
+        for (String query : QUERIES) {
+            schoolDirectory.search(query, searchResult);
+            matchCount += searchResult.size();
+        }
+        return matchCount;
+    }
+
+    /** Searches as in {@link #search}, but sorted by a score and filtered. */
+    @Benchmark
+    public int query() {
+        int matchCount = 0;
+        for (String query : QUERIES) {
+            schoolDirectory.query(TOP_MATH_QUERY.withText(query), searchResult);
+            matchCount += searchResult.size();
+        }
+        return matchCount;
+    }
+}
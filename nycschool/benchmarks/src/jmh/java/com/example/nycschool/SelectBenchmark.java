@@ -0,0 +1,125 @@
+package com.example.nycschool;
+
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures fetching the directory data set from a local server with and without selecting only the
+ * columns the app uses, to show what $select saves in bytes transferred and in parse time. Like the
+ * data portal, the server compresses its responses with gzip, and answers a request with a $select
+ * with just the selected columns.
+ *
+ * <p>Next to the time per fetch, {@link TransferProfiler} reports the bytes received and the time
+ * spent parsing per fetch, from what the transport and the fetcher record to {@link Metrics}.
+ */
+@State(Scope.Benchmark)
+public class SelectBenchmark {
+    @Param({"1", "100"})
+    public int scale;
+
+    @Param({"false", "true"})
+    public boolean select;
+
+    private final JsonFetcher fetcher;
+    private HttpServer server;
+    private String url;
+
+    public SelectBenchmark() {
+        Metrics metrics = new Metrics(TransferProfiler.SINK);
+        fetcher = new JsonFetcher(
+                new UrlConnectionTransport(10_000, 10_000, metrics),
+                RetryPolicy.NO_RETRIES,
+                metrics);
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] fullJson = SocrataFixtures.schoolDirectoryJson(scale);
+        byte[] fullBody = gzip(fullJson);
+        byte[] selectedBody = gzip(selectColumns(fullJson));
+        // Otherwise Nagle's algorithm holds back the end of each response for a delayed ACK,
+        // which would add the same tens of milliseconds to every fetch.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/resource/s3k6-pzi2.json", exchange -> reply(
+                exchange,
+                exchange.getRequestURI().getQuery() != null
+                        && exchange.getRequestURI().getQuery().contains("$select=")
+                        ? selectedBody
+                        : fullBody));
+        server.start();
+
+        String dataSetUrl = "http://127.0.0.1:" + server.getAddress().getPort()
+                + "/resource/s3k6-pzi2.json";
+        url = select
+                ? SchoolDirectoryController.createFullUrl(
+                        dataSetUrl, SchoolDirectoryController.DIRECTORY_COLUMNS)
+                : dataSetUrl;
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public JsonFetcher.FetchResult fetchSchoolDirectory(Blackhole blackhole) {
+        return fetcher
+                .streamRecords(
+                        url, HttpValidators.NONE, new SchoolTypeAdapter(), blackhole::consume)
+                .toBlocking()
+                .value();
+    }
+
+    /** Returns the records with only the columns the app selects, as the server would. */
+    private static byte[] selectColumns(byte[] json) throws IOException {
+        SchoolTypeAdapter adapter = new SchoolTypeAdapter();
+        ByteArrayOutputStream selected = new ByteArrayOutputStream(json.length);
+        try (JsonWriter writer =
+                new JsonWriter(new OutputStreamWriter(selected, StandardCharsets.UTF_8))) {
+            // The server leaves out the columns a record has no value for.
+            writer.setSerializeNulls(false);
+            writer.beginArray();
+            for (School school : SocrataFixtures.parseSchoolDirectory(json).values()) {
+                adapter.write(writer, school);
+            }
+            writer.endArray();
+        }
+        return selected.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(gzipped)) {
+            gzipStream.write(bytes);
+        }
+        return gzipped.toByteArray();
+    }
+
+    private static void reply(HttpExchange exchange, byte[] gzippedBody) throws IOException {
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, gzippedBody.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(gzippedBody);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.nycschool;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reports what the fetches of each iteration recorded to {@link #SINK}, per fetch: the bytes
+ * received and the time spent parsing. Benchmarks opt in by recording their fetches to the sink.
+ * The results are averaged across iterations, like the normalized results of the gc profiler,
+ * whereas JMH would add up auxiliary counters of the events type.
+ */
+public class TransferProfiler implements InternalProfiler {
+    private static final AtomicLong fetchCount = new AtomicLong();
+    private static final AtomicLong downloadBytes = new AtomicLong();
+    private static final AtomicLong parseNanos = new AtomicLong();
+
+    static final MetricsSink SINK = new MetricsSink() {
+        @Override
+        public void onSpanStarted(String name, int spanId) {}
+
+        @Override
+        public void onSpanEnded(String name, int spanId, long durationNanos) {}
+
+        @Override
+        public void onSpanCancelled(String name, int spanId) {}
+
+        @Override
+        public void onValue(String name, long value) {
+            switch (name) {
+                case Metrics.DOWNLOAD_BYTES:
+                    downloadBytes.addAndGet(value);
+                    break;
+                case Metrics.PARSE_TIME:
+                    parseNanos.addAndGet(value);
+                    break;
+                case Metrics.RECORDS_PARSED:
+                    // Recorded once by every fetch that succeeded.
+                    fetchCount.incrementAndGet();
+                    break;
+                default:
+                    // Swallow.
+            }
+        }
+
+        @Override
+        public void onLoadError(LoadError error) {}
+    };
+
+    @Override
+    public String getDescription() {
+        return "Bytes received and time spent parsing per fetch";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        fetchCount.set(0);
+        downloadBytes.set(0);
+        parseNanos.set(0);
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(
+            BenchmarkParams benchmarkParams,
+            IterationParams iterationParams,
+            IterationResult result) {
+        long fetches = fetchCount.get();
+        if (fetches == 0) {
+            return Collections.emptyList();
+        }
+        ArrayList<Result> results = new ArrayList<>();
+        results.add(new ScalarResult("transfer.download_bytes",
+                (double) downloadBytes.get() / fetches, "B/fetch", AggregationPolicy.AVG));
+        results.add(new ScalarResult("transfer.parse_time",
+                parseNanos.get() / 1000.0 / fetches, "us/fetch", AggregationPolicy.AVG));
+        return results;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.nycschool;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Opens the snapshot that is bundled with the app, see {@link BundledSnapshotGenerator}. It is
+ * shown on the very first start, before anything has been stored, so the directory does not have
+ * to wait for the network.
+ */
+public interface BundledSnapshot {
+    /** The name of the snapshot in the app's assets. */
+    String ASSET_NAME = "school_directory.bin";
+
+    /** Used when no snapshot is bundled. */
+    BundledSnapshot NONE = () -> null;
+
+    /** Returns null if no snapshot is bundled. The caller closes the stream. */
+    @Nullable
+    InputStream open() throws IOException;
+}
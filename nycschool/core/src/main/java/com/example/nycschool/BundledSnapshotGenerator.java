@@ -0,0 +1,125 @@
+package com.example.nycschool;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+
+/**
+ * Generates the snapshot that is bundled with the app, see {@link BundledSnapshot}. Runs in two
+ * steps:
+ *
+ * <p>{@code record <directory>} downloads both data sets as JSON into the directory, with the same
+ * columns the app fetches. Only run by hand, by the app's recordSnapshotData task, and its output
+ * is committed to the app's snapshot directory. Builds never record, so that they are reproducible
+ * and do not need the network.
+ *
+ * <p>{@code generate <directory> <file>} runs in every app build that has recorded JSON to generate
+ * from. It parses the recorded JSON and writes it to the file in the
+ * {@link SchoolDirectoryStore} format. The :updated_at cursors are kept, so that on the first start
+ * only the records that changed since the recording have to be fetched.
+ */
+public final class BundledSnapshotGenerator {
+    static final String DIRECTORY_FILE_NAME = "school_directory.json";
+    static final String SAT_DATA_FILE_NAME = "sat_data.json";
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+    private static final int READ_TIMEOUT_MILLIS = 60_000;
+
+    private BundledSnapshotGenerator() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2 && args[0].equals("record")) {
+            record(new File(args[1]));
+        } else if (args.length == 3 && args[0].equals("generate")) {
+            generate(new File(args[1]), new File(args[2]));
+        } else {
+            System.err.println("Usage: record <directory> | generate <directory> <file>");
+            System.exit(2);
+        }
+    }
+
+    private static void record(File directory) throws IOException {
+        HttpTransport transport = new UrlConnectionTransport(
+                CONNECT_TIMEOUT_MILLIS, READ_TIMEOUT_MILLIS, Metrics.NO_OP);
+        download(
+                transport,
+                SchoolDirectoryController.createFullUrl(
+                        SchoolDirectoryController.SCHOOL_DIRECTORY_JSON,
+                        SchoolDirectoryController.DIRECTORY_COLUMNS),
+                new File(directory, DIRECTORY_FILE_NAME));
+        download(
+                transport,
+                SchoolDirectoryController.createFullUrl(
+                        SchoolDirectoryController.SCHOOL_SAT_DATA_JSON,
+                        SchoolDirectoryController.SAT_COLUMNS),
+                new File(directory, SAT_DATA_FILE_NAME));
+    }
+
+    /**
+     * Downloads the URL into the file. The download goes to a temporary file first, so that a
+     * failed download never leaves a truncated file behind for the build to generate from.
+     */
+    private static void download(HttpTransport transport, String url, File file)
+            throws IOException {
+        file.getParentFile().mkdirs();
+        File partialFile = new File(file.getPath() + ".partial");
+        try (HttpTransport.Response response = transport.get(url, Collections.emptyMap())) {
+            if (response.getStatusCode() != 200) {
+                throw new HttpStatusException(response.getStatusCode(), url);
+            }
+            try (InputStream in = response.getBody();
+                    OutputStream out = new FileOutputStream(partialFile)) {
+                byte[] buffer = new byte[8192];
+                int count;
+                while ((count = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, count);
+                }
+            }
+        } catch (IOException e) {
+            partialFile.delete();
+            throw e;
+        }
+        if (!partialFile.renameTo(file)) {
+            // Not atomic, but the rename only fails on platforms that do not replace files.
+            file.delete();
+            if (!partialFile.renameTo(file)) {
+                throw new IOException("Could not move " + partialFile + " to " + file);
+            }
+        }
+    }
+
+    private static void generate(File directory, File file) throws IOException {
+        HashMap<String, School> directorySchools = new HashMap<>();
+        try (InputStream in = new FileInputStream(new File(directory, DIRECTORY_FILE_NAME))) {
+            JsonFetcher.readRecords(
+                    in,
+                    new SchoolTypeAdapter(),
+                    school -> SchoolDirectoryController.addSchool(directorySchools, school));
+        }
+        HashMap<String, School> satData = new HashMap<>();
+        try (InputStream in = new FileInputStream(new File(directory, SAT_DATA_FILE_NAME))) {
+            JsonFetcher.readRecords(
+                    in,
+                    new SatRecordTypeAdapter(),
+                    satRecord -> SchoolDirectoryController.addSatData(satData, satRecord));
+        }
+
+        SchoolDirectorySnapshot snapshot = new SchoolDirectorySnapshot(
+                directorySchools,
+                satData,
+                HttpValidators.NONE,
+                HttpValidators.NONE,
+                SchoolDirectoryController.getLatestUpdatedAt(directorySchools, null),
+                SchoolDirectoryController.getLatestUpdatedAt(satData, null));
+        file.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(file)) {
+            SchoolDirectoryStore.write(snapshot, out);
+        }
+        System.out.println("Wrote " + directorySchools.size() + " schools and " + satData.size()
+                + " SAT records to " + file);
+    }
+}
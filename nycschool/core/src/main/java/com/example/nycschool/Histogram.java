@@ -0,0 +1,71 @@
+package com.example.nycschool;
+
+/**
+ * Distribution of the values recorded for a metric. Values are counted in buckets by powers of two,
+ * so the histogram takes the same small amount of memory no matter how many values are recorded,
+ * and percentiles are accurate to within a factor of two.
+ */
+public class Histogram {
+    // Bucket i counts the values whose highest set bit is bit i - 1. Bucket 0 counts zeros.
+    private final long[] buckets = new long[Long.SIZE + 1];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /** Records a value. Negative values are recorded as zero. */
+    public synchronized void record(long value) {
+        value = Math.max(value, 0);
+        buckets[Long.SIZE - Long.numberOfLeadingZeros(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /** Returns the smallest value recorded, or 0 if none was. */
+    public synchronized long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /** Returns the largest value recorded, or 0 if none was. */
+    public synchronized long getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /** Returns the mean of the values recorded, or 0 if none was. */
+    public synchronized double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile, from 0 to 100, of the values recorded. It is
+     * the top of the bucket the percentile falls in, but never more than the largest value.
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= Math.max(rank, 1)) {
+                long bucketTop = i == 0 ? 0 : i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1;
+                return Math.min(bucketTop, max);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "count=" + count + " min=" + getMin() + " mean=" + (long) getMean()
+                + " p50=" + getPercentile(50) + " p90=" + getPercentile(90)
+                + " p99=" + getPercentile(99) + " max=" + getMax();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.nycschool;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link Histogram} per metric, of the span durations and values recorded under its name.
+ * Load errors are counted per {@link LoadError.Kind} under "load.errors." and the kind's name.
+ */
+public class HistogramMetricsSink implements MetricsSink {
+    private static final String LOAD_ERRORS = "load.errors.";
+
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public void onSpanStarted(String name, int spanId) {}
+
+    @Override
+    public void onSpanEnded(String name, int spanId, long durationNanos) {
+        getOrCreateHistogram(name).record(durationNanos);
+    }
+
+    // A cancelled span did not measure anything complete, so it would only skew the histogram.
+    @Override
+    public void onSpanCancelled(String name, int spanId) {}
+
+    @Override
+    public void onValue(String name, long value) {
+        getOrCreateHistogram(name).record(value);
+    }
+
+    @Override
+    public void onLoadError(LoadError error) {
+        getOrCreateHistogram(LOAD_ERRORS + error.getKind().name()).record(1);
+    }
+
+    /** Returns the histogram of the metric, or Optional.empty() if nothing was recorded for it. */
+    public Optional<Histogram> getHistogram(String name) {
+        return Optional.ofNullable(histograms.get(name));
+    }
+
+    /** Returns the histograms of every metric recorded so far, by name in alphabetical order. */
+    public Map<String, Histogram> getHistograms() {
+        return Collections.unmodifiableMap(new TreeMap<>(histograms));
+    }
+
+    private Histogram getOrCreateHistogram(String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(name, key -> new Histogram());
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.nycschool;
+
+import java.io.IOException;
+
+/** Thrown when the server replies with a status code that the request cannot be handled with. */
+public class HttpStatusException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    HttpStatusException(int statusCode, String url) {
+        super("Unexpected response " + statusCode + " for " + url);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.nycschool;
+
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/** Makes HTTP GET requests for {@link JsonFetcher}, so the HTTP client can be swapped out. */
+public interface HttpTransport {
+
+    /** The response to a request. It must be closed so that the connection can be reused. */
+    interface Response extends Closeable {
+        int getStatusCode() throws IOException;
+
+        @Nullable
+        String getHeader(String name);
+
+        /** Returns the body, already decompressed if the server compressed it. */
+        InputStream getBody() throws IOException;
+    }
+
+    /**
+     * Sends a GET request with the given request headers. Throws an IOException if the server could
+     * not be reached or timed out.
+     */
+    Response get(String url, Map<String, String> headers) throws IOException;
+}
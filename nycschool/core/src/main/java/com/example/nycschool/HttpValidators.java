@@ -0,0 +1,29 @@
+package com.example.nycschool;
+
+import androidx.annotation.Nullable;
+
+/**
+ * The ETag and Last-Modified response headers of a fetched resource. These are sent back to the
+ * server on the next fetch so that it can reply with 304 Not Modified if nothing has changed.
+ */
+public class HttpValidators {
+    static final HttpValidators NONE = new HttpValidators(null, null);
+
+    @Nullable private final String etag;
+    @Nullable private final String lastModified;
+
+    HttpValidators(@Nullable String etag, @Nullable String lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    @Nullable
+    public String getEtag() {
+        return etag;
+    }
+
+    @Nullable
+    public String getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.nycschool;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import rx.Single;
+
+/** Fetches JSON from the URL. */
+@Singleton
+public class JsonFetcher {
+    private final HttpTransport transport;
+    private final RetryPolicy retryPolicy;
+    private final Metrics metrics;
+
+    @Inject
+    JsonFetcher(HttpTransport transport, RetryPolicy retryPolicy, Metrics metrics) {
+        this.transport = transport;
+        this.retryPolicy = retryPolicy;
+        this.metrics = metrics;
+    }
+
+    /** Receives the records of a JSON array one at a time as they are read off the stream. */
+    public interface RecordHandler<T> {
+        void onRecord(T record);
+    }
+
+    /** The outcome of a conditional fetch. */
+    public static class FetchResult {
+        private final boolean isNotModified;
+        private final HttpValidators validators;
+        private final int recordCount;
+
+        FetchResult(boolean isNotModified, HttpValidators validators, int recordCount) {
+            this.isNotModified = isNotModified;
+            this.validators = validators;
+            this.recordCount = recordCount;
+        }
+
+        /** True if the server replied 304, in which case no records were read. */
+        public boolean isNotModified() {
+            return isNotModified;
+        }
+
+        /** The validators to send on the next fetch of the same resource. */
+        public HttpValidators getValidators() {
+            return validators;
+        }
+
+        /** The number of records that were read. */
+        public int getRecordCount() {
+            return recordCount;
+        }
+    }
+
+    /**
+     * Attempts to fetch the JSON array at the given URL and hands each of its objects to the
+     * handler as soon as the adapter has read it, so the payload is never held in memory as a
+     * whole. If the connection fails or there are any IO errors, the caller is responsible for
+     * handling the error.
+     *
+     * <p>Since the records are parsed while the body downloads, the time spent reading them is
+     * recorded to {@link Metrics} split into the time spent waiting on the body and the rest,
+     * which is the time spent parsing and handling the records.
+     *
+     * <p>The validators from a previous fetch are sent as a conditional request. If the server
+     * replies that the resource has not been modified, the handler is never called.
+     *
+     * <p>Failures to connect and retryable error responses are retried according to the
+     * {@link RetryPolicy}. Once records have been handed to the handler the fetch is no longer
+     * retried, since the handler would see the same records twice.
+     */
+    public <T> Single<FetchResult> streamRecords(
+            String jsonUrl,
+            HttpValidators validators,
+            TypeAdapter<T> adapter,
+            RecordHandler<T> handler) {
+        return Single.fromCallable(() -> {
+            HashMap<String, String> headers = new HashMap<>();
+            if (validators.getEtag() != null) {
+                headers.put("If-None-Match", validators.getEtag());
+            }
+            if (validators.getLastModified() != null) {
+                headers.put("If-Modified-Since", validators.getLastModified());
+            }
+
+            try (HttpTransport.Response response = getWithRetries(jsonUrl, headers)) {
+                int statusCode = response.getStatusCode();
+                if (statusCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    return new FetchResult(/*isNotModified=*/ true, validators, /*recordCount=*/ 0);
+                }
+                if (statusCode != HttpURLConnection.HTTP_OK) {
+                    throw new HttpStatusException(statusCode, jsonUrl);
+                }
+                MeteredInputStream body = new MeteredInputStream(response.getBody());
+                Metrics.Span readSpan = metrics.startSpan(Metrics.READ_TIME);
+                long startNanos = System.nanoTime();
+                int recordCount;
+                try {
+                    recordCount = readRecords(body, adapter, handler);
+                } finally {
+                    readSpan.end();
+                }
+                long readNanos = System.nanoTime() - startNanos;
+                metrics.recordValue(Metrics.DOWNLOAD_TIME, body.getReadNanos());
+                metrics.recordValue(Metrics.PARSE_TIME, readNanos - body.getReadNanos());
+                metrics.recordValue(Metrics.RECORDS_PARSED, recordCount);
+                return new FetchResult(
+                        /*isNotModified=*/ false,
+                        new HttpValidators(
+                                response.getHeader("ETag"), response.getHeader("Last-Modified")),
+                        recordCount);
+            }
+        });
+    }
+
+    private HttpTransport.Response getWithRetries(String jsonUrl, HashMap<String, String> headers)
+            throws IOException, InterruptedException {
+        int attempts = 0;
+        while (true) {
+            attempts++;
+            HttpTransport.Response response;
+            try {
+                response = transport.get(jsonUrl, headers);
+                if (!retryPolicy.isRetryable(response.getStatusCode())
+                        || !retryPolicy.shouldRetry(attempts)) {
+                    return response;
+                }
+                response.close();
+            } catch (IOException e) {
+                if (!retryPolicy.shouldRetry(attempts)) {
+                    throw e;
+                }
+            }
+            Thread.sleep(retryPolicy.getDelayMillis(attempts));
+        }
+    }
+
+    /** Reads a top-level JSON array of objects from the stream and closes it when done. */
+    static <T> int readRecords(
+            InputStream inputStream, TypeAdapter<T> adapter, RecordHandler<T> handler)
+            throws IOException {
+        int count = 0;
+        try (JsonReader reader = new JsonReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    // Not a record. Skip it rather than failing the entire fetch.
+                    reader.skipValue();
+                    continue;
+                }
+                handler.onRecord(adapter.read(reader));
+                count++;
+            }
+            reader.endArray();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.nycschool;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.util.OptionalInt;
+
+/** Why loading the directory failed, so the UI can tell the user and the failure can be counted. */
+public class LoadError {
+    /** What kind of failure it was. */
+    public enum Kind {
+        /** The server could not be reached, or the connection broke. Trying again may work. */
+        NETWORK,
+        /** The server replied with an error status. See {@link #getStatusCode()}. */
+        HTTP_STATUS,
+        /** The response was not the JSON that was expected. */
+        PARSE,
+        /** Anything else, which is most likely a bug. */
+        UNKNOWN,
+    }
+
+    private final Kind kind;
+    private final OptionalInt statusCode;
+    private final Throwable cause;
+
+    LoadError(Kind kind, OptionalInt statusCode, Throwable cause) {
+        this.kind = kind;
+        this.statusCode = statusCode;
+        this.cause = cause;
+    }
+
+    /** Classifies the error a load failed with. */
+    static LoadError from(Throwable error) {
+        if (error instanceof HttpStatusException) {
+            return new LoadError(
+                    Kind.HTTP_STATUS,
+                    OptionalInt.of(((HttpStatusException) error).getStatusCode()),
+                    error);
+        }
+        // Checked before IOException, since MalformedJsonException is one.
+        if (error instanceof MalformedJsonException
+                || error instanceof JsonParseException
+                || error instanceof IllegalStateException
+                || error instanceof NumberFormatException) {
+            // Gson throws IllegalStateException when a value is of another type than expected.
+            return new LoadError(Kind.PARSE, OptionalInt.empty(), error);
+        }
+        if (error instanceof IOException) {
+            return new LoadError(Kind.NETWORK, OptionalInt.empty(), error);
+        }
+        return new LoadError(Kind.UNKNOWN, OptionalInt.empty(), error);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /** Returns the HTTP status code if the kind is {@link Kind#HTTP_STATUS}. */
+    public OptionalInt getStatusCode() {
+        return statusCode;
+    }
+
+    public Throwable getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return kind + ": " + cause;
+    }
+}
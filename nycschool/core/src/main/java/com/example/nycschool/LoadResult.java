@@ -0,0 +1,34 @@
+package com.example.nycschool;
+
+import androidx.annotation.Nullable;
+
+import java.util.Optional;
+
+/** What loading the directory resulted in: either an update of the directory or an error. */
+public class LoadResult {
+    @Nullable private final SchoolDirectoryUpdate update;
+    @Nullable private final LoadError error;
+
+    private LoadResult(@Nullable SchoolDirectoryUpdate update, @Nullable LoadError error) {
+        this.update = update;
+        this.error = error;
+    }
+
+    static LoadResult of(SchoolDirectoryUpdate update) {
+        return new LoadResult(update, null);
+    }
+
+    static LoadResult failed(LoadError error) {
+        return new LoadResult(null, error);
+    }
+
+    /** Returns the update, or Optional.empty() if the load failed. */
+    public Optional<SchoolDirectoryUpdate> getUpdate() {
+        return Optional.ofNullable(update);
+    }
+
+    /** Returns why the load failed, or Optional.empty() if it did not. */
+    public Optional<LoadError> getError() {
+        return Optional.ofNullable(error);
+    }
+}
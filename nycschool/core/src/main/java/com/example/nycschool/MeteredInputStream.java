@@ -0,0 +1,54 @@
+package com.example.nycschool;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Counts the bytes read from a stream and the time spent waiting for them. */
+class MeteredInputStream extends FilterInputStream {
+    private long byteCount;
+    private long readNanos;
+
+    MeteredInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        long startNanos = System.nanoTime();
+        int b = super.read();
+        readNanos += System.nanoTime() - startNanos;
+        if (b >= 0) {
+            byteCount++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        long startNanos = System.nanoTime();
+        int count = super.read(buffer, offset, length);
+        readNanos += System.nanoTime() - startNanos;
+        if (count > 0) {
+            byteCount += count;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long startNanos = System.nanoTime();
+        long skipped = super.skip(n);
+        readNanos += System.nanoTime() - startNanos;
+        byteCount += skipped;
+        return skipped;
+    }
+
+    long getByteCount() {
+        return byteCount;
+    }
+
+    long getReadNanos() {
+        return readNanos;
+    }
+}
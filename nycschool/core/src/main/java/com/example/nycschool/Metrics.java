@@ -0,0 +1,93 @@
+package com.example.nycschool;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Records how long the steps of loading the directory take and how much data they handle. The
+ * measurements are passed on to a {@link MetricsSink}, and are dropped if there is none.
+ *
+ * <p>Durations are in nanoseconds. The names of the measurements are the constants below.
+ */
+@Singleton
+public class Metrics {
+    /** Records nothing. */
+    public static final Metrics NO_OP = new Metrics(MetricsSink.NO_OP);
+
+    /**
+     * Span from sending the request to receiving the status line of the response. Includes
+     * resolving the host and connecting, unless a kept alive connection is reused.
+     */
+    public static final String TIME_TO_FIRST_BYTE = "http.time_to_first_byte";
+    /** Bytes of a response body as received, before it is decompressed. */
+    public static final String DOWNLOAD_BYTES = "http.download_bytes";
+    /** Span for reading all records of a response, which is both downloading and parsing. */
+    public static final String READ_TIME = "json.read_time";
+    /** Time spent waiting on the response body while reading the records. */
+    public static final String DOWNLOAD_TIME = "json.download_time";
+    /** Time spent parsing while reading the records, i.e. not waiting on the response body. */
+    public static final String PARSE_TIME = "json.parse_time";
+    /** Records read from a response. */
+    public static final String RECORDS_PARSED = "json.records_parsed";
+    /** Records read from a response that were dropped, e.g. because they had no school name. */
+    public static final String RECORDS_SKIPPED = "json.records_skipped";
+    /** Span for joining the SAT data onto the directory. */
+    public static final String SAT_JOIN_TIME = "sat_join.time";
+    /** Percentage of the SAT records that were joined onto a school. */
+    public static final String SAT_JOIN_HIT_RATE = "sat_join.hit_rate_percent";
+    /** SAT records that matched no school. */
+    public static final String SAT_JOIN_MISSES = "sat_join.misses";
+    /** SAT records that matched a school that already had SAT data. */
+    public static final String SAT_JOIN_DUPLICATES = "sat_join.duplicates";
+    /** Span from creating the list screen to showing the first schools in it. */
+    public static final String TIME_TO_FIRST_RENDER = "ui.time_to_first_render";
+
+    private final MetricsSink sink;
+    private final AtomicInteger nextSpanId = new AtomicInteger();
+
+    @Inject
+    public Metrics(MetricsSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Starts a span. It must be ended or cancelled exactly once, but may be ended or cancelled on
+     * another thread.
+     */
+    public Span startSpan(String name) {
+        Span span = new Span(name, nextSpanId.incrementAndGet());
+        sink.onSpanStarted(name, span.spanId);
+        return span;
+    }
+
+    public void recordValue(String name, long value) {
+        sink.onValue(name, value);
+    }
+
+    public void recordLoadError(LoadError error) {
+        sink.onLoadError(error);
+    }
+
+    /** A measurement of how long something took. */
+    public class Span {
+        private final String name;
+        private final int spanId;
+        private final long startNanos = System.nanoTime();
+
+        private Span(String name, int spanId) {
+            this.name = name;
+            this.spanId = spanId;
+        }
+
+        public void end() {
+            sink.onSpanEnded(name, spanId, System.nanoTime() - startNanos);
+        }
+
+        /** Ends the span without recording its duration, since what it measured was abandoned. */
+        public void cancel() {
+            sink.onSpanCancelled(name, spanId);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.nycschool;
+
+/**
+ * Receives the measurements recorded through {@link Metrics}, e.g. to keep them as histograms or to
+ * forward them to a tracing or analytics backend. Implementations are called on whichever thread
+ * the measurement was made, so they must be thread safe and should return quickly.
+ */
+public interface MetricsSink {
+    /** Drops every measurement. */
+    MetricsSink NO_OP = new MetricsSink() {
+        @Override
+        public void onSpanStarted(String name, int spanId) {}
+
+        @Override
+        public void onSpanEnded(String name, int spanId, long durationNanos) {}
+
+        @Override
+        public void onSpanCancelled(String name, int spanId) {}
+
+        @Override
+        public void onValue(String name, long value) {}
+
+        @Override
+        public void onLoadError(LoadError error) {}
+    };
+
+    /**
+     * Called when a span starts. The span ID tells apart spans of the same name that overlap, and
+     * is passed again when the span ends, possibly on another thread.
+     */
+    void onSpanStarted(String name, int spanId);
+
+    void onSpanEnded(String name, int spanId, long durationNanos);
+
+    /**
+     * Called instead of {@link #onSpanEnded} when a span is cancelled, i.e. what it measured was
+     * abandoned before it finished, so it has no duration to record.
+     */
+    void onSpanCancelled(String name, int spanId);
+
+    /** Called for a measurement that is not a span, like a byte count or a duration summed up. */
+    void onValue(String name, long value);
+
+    /** Called when loading the directory fails. */
+    void onLoadError(LoadError error);
+}
@@ -0,0 +1,181 @@
+package com.example.nycschool;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The overview paragraph of a school. Overviews are by far the largest part of the directory,
+ * but the list only shows their first two lines until a row is expanded. So only a short preview
+ * is kept as a String, and the full text is kept as UTF-8 bytes, packed together with the text of
+ * other overviews into shared slabs. It is only decoded when {@link #getText()} is called.
+ *
+ * <p>Overviews are immutable and are created with an {@link Allocator}, which owns the slabs. Each
+ * load of the directory packs its overviews with an allocator of its own, so a slab only holds
+ * overviews of one load and is freed along with the schools of that load.
+ */
+public final class Overview {
+    // Enough for the two lines that a collapsed row shows.
+    @VisibleForTesting
+    static final int PREVIEW_BYTES = 160;
+    // Slabs start small, so that a refresh that reads a few overviews does not take a whole slab,
+    // and double up to the full size.
+    private static final int FIRST_SLAB_SIZE = 4 * 1024;
+    private static final int SLAB_SIZE = 64 * 1024;
+    // Longer texts get an array of their own, so that little of a slab is left unused.
+    private static final int MAX_SLAB_TEXT_BYTES = SLAB_SIZE / 8;
+    // Rather than U+2026, which would make the preview of an ASCII text a String of UTF-16 and so
+    // twice as large.
+    @VisibleForTesting
+    static final String ELLIPSIS = "...";
+
+    private final String preview;
+    // The UTF-8 text is bytes[offset, offset + length). Null if the preview is the whole text.
+    @Nullable private final byte[] bytes;
+    private final int offset;
+    private final int length;
+
+    private Overview(String preview, @Nullable byte[] bytes, int offset, int length) {
+        this.preview = preview;
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Packs the text of overviews into slabs. It is not thread-safe, so that no lock is taken per
+     * overview; an allocator is only used by the one load that owns it.
+     */
+    static final class Allocator {
+        // The slab that new texts are copied into, and the offset of its unused part.
+        @Nullable private byte[] slab;
+        private int slabOffset;
+        private int nextSlabSize = FIRST_SLAB_SIZE;
+
+        Overview of(String text) {
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            if (utf8.length <= PREVIEW_BYTES) {
+                return new Overview(text, null, 0, 0);
+            }
+            if (utf8.length > MAX_SLAB_TEXT_BYTES) {
+                return create(utf8, 0, utf8.length);
+            }
+            int textOffset = reserve(utf8.length);
+            System.arraycopy(utf8, 0, slab, textOffset, utf8.length);
+            return create(slab, textOffset, utf8.length);
+        }
+
+        /**
+         * Reads the given number of UTF-8 bytes straight into a slab, so that the full text is
+         * never decoded. See {@link Overview#writeTo} for the other direction.
+         */
+        Overview read(DataInput in, int length) throws IOException {
+            if (length <= PREVIEW_BYTES || length > MAX_SLAB_TEXT_BYTES) {
+                byte[] utf8 = new byte[length];
+                in.readFully(utf8);
+                return length <= PREVIEW_BYTES
+                        ? new Overview(new String(utf8, StandardCharsets.UTF_8), null, 0, 0)
+                        : create(utf8, 0, length);
+            }
+            int textOffset = reserve(length);
+            in.readFully(slab, textOffset, length);
+            return create(slab, textOffset, length);
+        }
+
+        /**
+         * Returns the offset in the slab at which the given number of bytes can be written,
+         * starting a new slab if they do not fit into the current one.
+         */
+        private int reserve(int byteCount) {
+            if (slab == null || slabOffset + byteCount > slab.length) {
+                slab = new byte[Math.max(nextSlabSize, byteCount)];
+                slabOffset = 0;
+                nextSlabSize = Math.min(nextSlabSize * 2, SLAB_SIZE);
+            }
+            int textOffset = slabOffset;
+            slabOffset += byteCount;
+            return textOffset;
+        }
+    }
+
+    /** Creates an overview of a text that is longer than the preview. */
+    private static Overview create(byte[] bytes, int offset, int length) {
+        // Back up to the start of the character at the end of the preview, so none is cut in two.
+        int end = PREVIEW_BYTES;
+        while (end > 0 && (bytes[offset + end] & 0xc0) == 0x80) {
+            end--;
+        }
+        String preview = new String(bytes, offset, end, StandardCharsets.UTF_8);
+        // End at a word, if there is one.
+        int lastSpace = preview.lastIndexOf(' ');
+        if (lastSpace > 0) {
+            preview = preview.substring(0, lastSpace);
+        }
+        return new Overview(preview + ELLIPSIS, bytes, offset, length);
+    }
+
+    /**
+     * Returns the beginning of the text, ending in an ellipsis if the text goes on. It is the whole
+     * text if that is short.
+     */
+    public String getPreview() {
+        return preview;
+    }
+
+    /** Decodes and returns the whole text. Only call this when the whole text is shown. */
+    public String getText() {
+        return bytes == null ? preview : new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /** Writes the UTF-8 length and bytes of the whole text without decoding it. */
+    void writeTo(DataOutput out) throws IOException {
+        if (bytes == null) {
+            byte[] utf8 = preview.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        } else {
+            out.writeInt(length);
+            out.write(bytes, offset, length);
+        }
+    }
+
+    /** Overviews are equal if they have the same text. Compares the bytes without decoding them. */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof Overview)) {
+            return false;
+        }
+        Overview other = (Overview) object;
+        if (bytes == null || other.bytes == null) {
+            return bytes == other.bytes && preview.equals(other.preview);
+        }
+        if (length != other.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] != other.bytes[other.offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        if (bytes == null) {
+            return preview.hashCode();
+        }
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + bytes[offset + i];
+        }
+        return hash;
+    }
+}
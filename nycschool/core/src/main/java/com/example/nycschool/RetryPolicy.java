@@ -0,0 +1,42 @@
+package com.example.nycschool;
+
+import java.util.Random;
+
+/**
+ * Decides how often and after how long a failed request is retried. The delay grows exponentially
+ * with every attempt up to a maximum, and a random delay between zero and that value is used
+ * ("full jitter") so that clients that failed at the same time do not all retry at the same time.
+ */
+public class RetryPolicy {
+    static final RetryPolicy NO_RETRIES = new RetryPolicy(1, 0, 0);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Random random = new Random();
+
+    RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /** Returns true if another attempt should be made after the given number of attempts. */
+    public boolean shouldRetry(int attempts) {
+        return attempts < maxAttempts;
+    }
+
+    /** Returns true for the status codes that are worth retrying, i.e. server errors and 429. */
+    public boolean isRetryable(int statusCode) {
+        return statusCode >= 500 || statusCode == 429;
+    }
+
+    /** Returns how long to wait before the next attempt, given the number of attempts so far. */
+    public long getDelayMillis(int attempts) {
+        // Cap the shift so that the delay does not overflow for a large number of attempts.
+        long delay = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempts - 1, 20));
+        synchronized (random) {
+            return (long) (random.nextDouble() * delay);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.nycschool;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import rx.Observable;
+import rx.Single;
+
+/**
+ * Size-bounded cache of SAT data by DBN that evicts the least recently used entry. Schools that
+ * turned out to have no SAT data are cached too, with no values set, so they are not requested
+ * again. It also keeps the fetches that are in flight by DBN, so that a school that is already
+ * being fetched, e.g. by a prefetch, is not requested again and callers wait on that fetch instead.
+ */
+class SatDataCache {
+    /** Fetches the SAT data of several schools with a single request. */
+    interface Fetcher {
+        /**
+         * Returns a fetch of the SAT data of the DBNs, which emits a mapping from every one of the
+         * DBNs to its SAT data once subscribed to.
+         */
+        Single<HashMap<String, SchoolSatData>> fetch(List<String> dbns);
+    }
+
+    private final LinkedHashMap<String, SchoolSatData> entries;
+    // The fetches in flight by DBN. Each one emits the SAT data of the DBN, or the error.
+    private final HashMap<String, Observable<SchoolSatData>> fetches = new HashMap<>();
+
+    SatDataCache(int maxSize) {
+        // Access order makes the least recently used entry the eldest one.
+        entries = new LinkedHashMap<String, SchoolSatData>(maxSize, 0.75f, /*accessOrder=*/ true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SchoolSatData> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /** Returns null if the DBN is not cached. */
+    @Nullable
+    synchronized SchoolSatData get(String dbn) {
+        return entries.get(dbn);
+    }
+
+    /**
+     * Returns the SAT data of each of the DBNs: from the cache if it is cached, from the fetch in
+     * flight if it is being fetched, and otherwise from a new fetch. The DBNs that are neither
+     * cached nor being fetched are all fetched with a single new fetch, which is started right
+     * away and runs to the end even if nobody waits on it. Once it has finished its results are
+     * cached, or if it failed, its DBNs are fetched again the next time they are asked for.
+     */
+    synchronized Map<String, Single<SchoolSatData>> fetch(List<String> dbns, Fetcher fetcher) {
+        HashMap<String, Single<SchoolSatData>> satData = new HashMap<>();
+        LinkedHashSet<String> missingDbns = new LinkedHashSet<>();
+        for (String dbn : dbns) {
+            SchoolSatData cachedSatData = entries.get(dbn);
+            Observable<SchoolSatData> fetch = fetches.get(dbn);
+            if (cachedSatData != null) {
+                satData.put(dbn, Single.just(cachedSatData));
+            } else if (fetch != null) {
+                satData.put(dbn, fetch.toSingle());
+            } else {
+                missingDbns.add(dbn);
+            }
+        }
+        if (missingDbns.isEmpty()) {
+            return satData;
+        }
+
+        ArrayList<String> fetchedDbns = new ArrayList<>(missingDbns);
+        // Replays the result to every caller that waits on it, however late it subscribes.
+        Observable<HashMap<String, SchoolSatData>> fetch =
+                fetcher.fetch(fetchedDbns).toObservable().cache();
+        for (String dbn : fetchedDbns) {
+            Observable<SchoolSatData> dbnFetch = fetch.map(satDataByDbn -> satDataByDbn.get(dbn));
+            fetches.put(dbn, dbnFetch);
+            satData.put(dbn, dbnFetch.toSingle());
+        }
+        // Subscribed to first, so the results are cached before any waiting caller receives them.
+        fetch.subscribe(
+                satDataByDbn -> finishFetch(fetchedDbns, satDataByDbn),
+                error -> finishFetch(fetchedDbns, null));
+        return satData;
+    }
+
+    private synchronized void finishFetch(
+            List<String> dbns, @Nullable HashMap<String, SchoolSatData> satDataByDbn) {
+        for (String dbn : dbns) {
+            fetches.remove(dbn);
+            if (satDataByDbn != null) {
+                entries.put(dbn, satDataByDbn.get(dbn));
+            }
+        }
+    }
+}
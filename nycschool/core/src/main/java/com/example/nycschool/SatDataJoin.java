@@ -0,0 +1,140 @@
+package com.example.nycschool;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Joins the records of the SAT data set onto the schools of the directory data set. A SAT record is
+ * matched by DBN, and only if that fails by the normalized school name, since the SAT data set
+ * spells most names differently. See {@link SchoolNameIndex}.
+ *
+ * <p>SAT records that match no school are dropped instead of being listed as schools of their own,
+ * and a school that is matched more than once keeps the SAT data it was matched with first. The
+ * counts of each outcome are kept so they can be reported, along with the school that each SAT
+ * record was joined onto, so that a changed SAT record can be traced to the school it changes.
+ */
+class SatDataJoin {
+    private final HashMap<String, School> schoolDirectory;
+    // Mapping from the key of a SAT record to the name of the school it was joined onto.
+    private final HashMap<String, String> joinedSchoolNames;
+    private final int matchCount;
+    private final int nameMatchCount;
+    private final int missCount;
+    private final int duplicateCount;
+
+    private SatDataJoin(
+            HashMap<String, School> schoolDirectory,
+            HashMap<String, String> joinedSchoolNames,
+            int matchCount,
+            int nameMatchCount,
+            int missCount,
+            int duplicateCount) {
+        this.schoolDirectory = schoolDirectory;
+        this.joinedSchoolNames = joinedSchoolNames;
+        this.matchCount = matchCount;
+        this.nameMatchCount = nameMatchCount;
+        this.missCount = missCount;
+        this.duplicateCount = duplicateCount;
+    }
+
+    /**
+     * Joins the SAT records onto the directory schools in a single pass over each. The input maps
+     * are left untouched since they may be reused for a later join. Schools are immutable, so the
+     * resulting map shares the directory schools that have no SAT data, and only the schools that
+     * do are new instances.
+     *
+     * @param directorySchools mapping from school name to the school in the directory data set
+     * @param satRecords mapping from a key to the SAT record with that key, each record with the
+     *     name, DBN and SAT data of a school
+     */
+    static SatDataJoin join(
+            HashMap<String, School> directorySchools, HashMap<String, School> satRecords) {
+        HashMap<String, School> schoolDirectory = new HashMap<>(directorySchools);
+        HashMap<String, String> joinedSchoolNames = new HashMap<>(satRecords.size() * 2);
+        HashMap<String, School> schoolsByDbn = new HashMap<>(directorySchools.size() * 2);
+        for (School school : directorySchools.values()) {
+            school.getDbn().ifPresent(dbn -> schoolsByDbn.put(dbn, school));
+        }
+
+        // Only built once a record fails to match by DBN, which is rare.
+        SchoolNameIndex schoolsByName = null;
+        int matchCount = 0;
+        int nameMatchCount = 0;
+        int missCount = 0;
+        int duplicateCount = 0;
+        for (Map.Entry<String, School> entry : satRecords.entrySet()) {
+            School satRecord = entry.getValue();
+            if (!satRecord.getSatData().isPresent()) {
+                continue;
+            }
+            School school = schoolsByDbn.get(satRecord.getDbn().orElse(null));
+            boolean isNameMatch = school == null;
+            if (isNameMatch) {
+                if (schoolsByName == null) {
+                    schoolsByName = new SchoolNameIndex(directorySchools.size());
+                    for (School directorySchool : directorySchools.values()) {
+                        schoolsByName.add(directorySchool);
+                    }
+                }
+                school = schoolsByName.get(satRecord.getName());
+                if (school == null) {
+                    missCount++;
+                    continue;
+                }
+            }
+            // The index has the directory schools, so look up the school joined so far.
+            school = schoolDirectory.get(school.getName());
+            if (school.getSatData().isPresent()) {
+                duplicateCount++;
+                continue;
+            }
+            schoolDirectory.put(school.getName(), school.withSatData(satRecord.getSatData().get()));
+            joinedSchoolNames.put(entry.getKey(), school.getName());
+            matchCount++;
+            if (isNameMatch) {
+                nameMatchCount++;
+            }
+        }
+        return new SatDataJoin(
+                schoolDirectory,
+                joinedSchoolNames,
+                matchCount,
+                nameMatchCount,
+                missCount,
+                duplicateCount);
+    }
+
+    /** Mapping from school name to the school with its SAT data, if any was matched. */
+    public HashMap<String, School> getSchoolDirectory() {
+        return schoolDirectory;
+    }
+
+    /**
+     * Returns the name of the school that the SAT record with the given key was joined onto, or
+     * Optional.empty() if the record matched no school or was a duplicate.
+     */
+    public Optional<String> getJoinedSchoolName(String satRecordKey) {
+        return Optional.ofNullable(joinedSchoolNames.get(satRecordKey));
+    }
+
+    /** The number of SAT records joined onto a school, including those matched by name. */
+    public int getMatchCount() {
+        return matchCount;
+    }
+
+    /** The number of SAT records that had to be matched by name because their DBN did not match. */
+    public int getNameMatchCount() {
+        return nameMatchCount;
+    }
+
+    /** The number of SAT records that matched no school and were dropped. */
+    public int getMissCount() {
+        return missCount;
+    }
+
+    /** The number of SAT records that matched a school which already had SAT data. */
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+}
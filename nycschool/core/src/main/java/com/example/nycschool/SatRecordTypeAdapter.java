@@ -0,0 +1,116 @@
+package com.example.nycschool;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.OptionalInt;
+
+/**
+ * Reads a record of the SAT data set into a {@link School} that has only its name, DBN and
+ * {@link SchoolSatData} set. Scores are decoded by hand rather than with Integer.parseInt, so that
+ * values that are not numbers, like the "s" used for suppressed scores, are left unset without
+ * throwing an exception.
+ */
+class SatRecordTypeAdapter extends TypeAdapter<School> {
+    // Longer values cannot be a score and could overflow an int.
+    private static final int MAX_SCORE_DIGITS = 9;
+
+    @Override
+    public School read(JsonReader reader) throws IOException {
+        School.Builder school = School.builder();
+        SchoolSatData.Builder satData = SchoolSatData.builder();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "school_name":
+                    school.setName(SchoolTypeAdapter.nextStringOrNull(reader));
+                    break;
+                case "dbn":
+                    school.setDbn(SchoolTypeAdapter.nextStringOrNull(reader));
+                    break;
+                case SchoolDirectoryController.UPDATED_AT:
+                    school.setUpdatedAt(SchoolTypeAdapter.nextStringOrNull(reader));
+                    break;
+                case "num_of_sat_test_takers":
+                case "sat_critical_reading_avg_score":
+                case "sat_math_avg_score":
+                case "sat_writing_avg_score":
+                    int score = parseScore(SchoolTypeAdapter.nextStringOrNull(reader));
+                    if (score != SatScores.MISSING) {
+                        setScore(satData, name, score);
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return school.setSatData(satData.build()).build();
+    }
+
+    @Override
+    public void write(JsonWriter writer, School school) throws IOException {
+        writer.beginObject();
+        writer.name("school_name").value(school.getName());
+        writer.name("dbn").value(school.getDbn().orElse(null));
+        writer.name(SchoolDirectoryController.UPDATED_AT)
+                .value(school.getUpdatedAt().orElse(null));
+        SchoolSatData satData = school.getSatData().orElse(null);
+        if (satData != null) {
+            writeScore(writer, "num_of_sat_test_takers", satData.getNumTestTakers());
+            writeScore(writer, "sat_critical_reading_avg_score", satData.getAvgReadingScore());
+            writeScore(writer, "sat_math_avg_score", satData.getAvgMathScore());
+            writeScore(writer, "sat_writing_avg_score", satData.getAvgWritingScore());
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Returns the non-negative integer in the value, or {@link SatScores#MISSING} if the value is
+     * null or is not made up of digits only.
+     */
+    static int parseScore(String value) {
+        if (value == null || value.isEmpty() || value.length() > MAX_SCORE_DIGITS) {
+            return SatScores.MISSING;
+        }
+        int score = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return SatScores.MISSING;
+            }
+            score = score * 10 + (c - '0');
+        }
+        return score;
+    }
+
+    private static void setScore(SchoolSatData.Builder satData, String name, int score) {
+        switch (name) {
+            case "num_of_sat_test_takers":
+                satData.setNumTestTakers(score);
+                break;
+            case "sat_critical_reading_avg_score":
+                satData.setAvgReadingScore(score);
+                break;
+            case "sat_math_avg_score":
+                satData.setAvgMathScore(score);
+                break;
+            case "sat_writing_avg_score":
+                satData.setAvgWritingScore(score);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void writeScore(JsonWriter writer, String name, OptionalInt score)
+            throws IOException {
+        if (score.isPresent()) {
+            // The data set has every value as a string.
+            writer.name(name).value(String.valueOf(score.getAsInt()));
+        }
+    }
+}
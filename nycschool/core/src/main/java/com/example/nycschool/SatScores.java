@@ -0,0 +1,115 @@
+package com.example.nycschool;
+
+import java.util.BitSet;
+import java.util.OptionalInt;
+
+/**
+ * Column store for the SAT data of every school in a {@link SchoolDirectory}. Each field is kept in
+ * its own int array indexed by school ordinal, along with a bitset of the ordinals that have a
+ * value for it. Reading a score does not allocate, which keeps binding and sorting by score cheap.
+ */
+public class SatScores {
+    /** Returned by {@link #get} for a school that has no value for the field. */
+    public static final int MISSING = -1;
+
+    /** The SAT fields. */
+    public enum Field {
+        NUM_TEST_TAKERS,
+        AVG_READING_SCORE,
+        AVG_MATH_SCORE,
+        AVG_WRITING_SCORE
+    }
+
+    private static final Field[] FIELDS = Field.values();
+
+    private final int[][] columns;
+    private final BitSet[] present;
+    private final BitSet hasSatData;
+
+    SatScores(School[] schools) {
+        columns = new int[FIELDS.length][schools.length];
+        present = new BitSet[FIELDS.length];
+        for (int field = 0; field < FIELDS.length; field++) {
+            present[field] = new BitSet(schools.length);
+        }
+        hasSatData = new BitSet(schools.length);
+
+        for (int ordinal = 0; ordinal < schools.length; ordinal++) {
+            setScores(ordinal, schools[ordinal]);
+        }
+    }
+
+    private SatScores(SatScores scores) {
+        columns = new int[FIELDS.length][];
+        present = new BitSet[FIELDS.length];
+        for (int field = 0; field < FIELDS.length; field++) {
+            columns[field] = scores.columns[field].clone();
+            present[field] = (BitSet) scores.present[field].clone();
+        }
+        hasSatData = (BitSet) scores.hasSatData.clone();
+    }
+
+    /**
+     * Returns a copy of the scores with those of the schools at the given ordinals replaced by
+     * their scores in the given array. The other schools must be at the same ordinals as before.
+     */
+    SatScores withChanges(School[] schools, int[] changedOrdinals) {
+        SatScores scores = new SatScores(this);
+        for (int ordinal : changedOrdinals) {
+            scores.hasSatData.clear(ordinal);
+            for (int field = 0; field < FIELDS.length; field++) {
+                scores.present[field].clear(ordinal);
+            }
+            scores.setScores(ordinal, schools[ordinal]);
+        }
+        return scores;
+    }
+
+    /** Returns true if the SAT data set had an entry for the school at all. */
+    public boolean hasSatData(int ordinal) {
+        return hasSatData.get(ordinal);
+    }
+
+    public boolean has(Field field, int ordinal) {
+        return present[field.ordinal()].get(ordinal);
+    }
+
+    /** Returns the value of the field for the school, or {@link #MISSING} if it has none. */
+    public int get(Field field, int ordinal) {
+        return has(field, ordinal) ? columns[field.ordinal()][ordinal] : MISSING;
+    }
+
+    /**
+     * Returns the sum of the average reading, math and writing scores of the school, or
+     * {@link #MISSING} if it is missing any of them.
+     */
+    public int getCompositeScore(int ordinal) {
+        if (!has(Field.AVG_READING_SCORE, ordinal)
+                || !has(Field.AVG_MATH_SCORE, ordinal)
+                || !has(Field.AVG_WRITING_SCORE, ordinal)) {
+            return MISSING;
+        }
+        return columns[Field.AVG_READING_SCORE.ordinal()][ordinal]
+                + columns[Field.AVG_MATH_SCORE.ordinal()][ordinal]
+                + columns[Field.AVG_WRITING_SCORE.ordinal()][ordinal];
+    }
+
+    private void setScores(int ordinal, School school) {
+        SchoolSatData satData = school.getSatData().orElse(null);
+        if (satData == null) {
+            return;
+        }
+        hasSatData.set(ordinal);
+        set(Field.NUM_TEST_TAKERS, ordinal, satData.getNumTestTakers());
+        set(Field.AVG_READING_SCORE, ordinal, satData.getAvgReadingScore());
+        set(Field.AVG_MATH_SCORE, ordinal, satData.getAvgMathScore());
+        set(Field.AVG_WRITING_SCORE, ordinal, satData.getAvgWritingScore());
+    }
+
+    private void set(Field field, int ordinal, OptionalInt value) {
+        if (value.isPresent()) {
+            columns[field.ordinal()][ordinal] = value.getAsInt();
+            present[field.ordinal()].set(ordinal);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.nycschool;
+
+import java.util.Optional;
+
+/**
+ * Immutable value that represents the school. Instances are created with a {@link Builder}, and
+ * every field is final, so a school can be handed to another thread without any synchronization.
+ * A school with other values is a new instance, which shares the unchanged values with the old one.
+ */
+public class School {
+    private final String name;
+
+    private final String dbn;
+
+    private final String borough;
+
+    private final SchoolSatData schoolSatData;
+
+    private final Overview overview;
+
+    private final String updatedAt;
+
+    private School(Builder builder) {
+        this.name = builder.name;
+        this.dbn = builder.dbn;
+        this.borough = builder.borough;
+        this.schoolSatData = builder.schoolSatData;
+        this.overview = builder.overview;
+        this.updatedAt = builder.updatedAt;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /** Returns a builder with the values of this school. */
+    Builder toBuilder() {
+        return new Builder()
+                .setName(name)
+                .setDbn(dbn)
+                .setBorough(borough)
+                .setSatData(schoolSatData)
+                .setOverview(overview)
+                .setUpdatedAt(updatedAt);
+    }
+
+    /** Returns this school with the given SAT data instead of its own. */
+    School withSatData(SchoolSatData schoolSatData) {
+        return toBuilder().setSatData(schoolSatData).build();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Returns the school's DBN (district borough number), which uniquely identifies it. */
+    public Optional<String> getDbn() {
+        return Optional.ofNullable(dbn);
+    }
+
+    public Optional<String> getBorough() {
+        return Optional.ofNullable(borough);
+    }
+
+    public Optional<SchoolSatData> getSatData() {
+        return Optional.ofNullable(schoolSatData);
+    }
+
+    public Optional<Overview> getOverview() {
+        return Optional.ofNullable(this.overview);
+    }
+
+    /**
+     * Returns when the record was last updated on the server, as the ISO 8601 timestamp of the
+     * Socrata :updated_at system field. It is only set on records that were just fetched.
+     */
+    public Optional<String> getUpdatedAt() {
+        return Optional.ofNullable(updatedAt);
+    }
+
+    /** Collects the values of a {@link School}. Values that are never set are missing. */
+    static class Builder {
+        private String name;
+        private String dbn;
+        private String borough;
+        private SchoolSatData schoolSatData;
+        private Overview overview;
+        private String updatedAt;
+
+        private Builder() {}
+
+        Builder setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        Builder setDbn(String dbn) {
+            this.dbn = dbn;
+            return this;
+        }
+
+        Builder setBorough(String borough) {
+            this.borough = borough;
+            return this;
+        }
+
+        Builder setSatData(SchoolSatData schoolSatData) {
+            this.schoolSatData = schoolSatData;
+            return this;
+        }
+
+        Builder setOverview(Overview overview) {
+            this.overview = overview;
+            return this;
+        }
+
+        Builder setUpdatedAt(String updatedAt) {
+            this.updatedAt = updatedAt;
+            return this;
+        }
+
+        School build() {
+            return new School(this);
+        }
+    }
+}
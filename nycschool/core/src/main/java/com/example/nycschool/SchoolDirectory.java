@@ -0,0 +1,251 @@
+package com.example.nycschool;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * POJO for the school directory. The schools are kept in an array sorted by name, and a school's
+ * position in that array is its ordinal. Indexes by DBN, borough and name prefix, and the
+ * {@link SchoolRankings} by SAT score, are built once when the directory is created. Nothing can
+ * be modified afterwards, so a directory can be shared between threads.
+ *
+ * <p>Every directory has a version, which is higher than that of the directory it replaced. A
+ * directory with changed schools is created with {@link #withChangedSchools}, which shares the
+ * indexes with this one when the changes allow it.
+ */
+public class SchoolDirectory {
+    /** Orders schools by name ignoring case, falling back to the exact name to break ties. */
+    private static final Comparator<School> NAME_ORDER =
+            (first, second) -> compareNames(first.getName(), second.getName());
+
+    private final long version;
+    private final School[] schools;
+    private final List<School> schoolList;
+    // The indexes hold ordinals rather than schools, so they stay valid when a school is replaced
+    // by a changed copy of itself.
+    private final Map<String, Integer> ordinalsByDbn;
+    private final Map<String, int[]> ordinalsByBorough;
+    private final SchoolSearchIndex searchIndex;
+    private final SatScores satScores;
+    private final SchoolRankings rankings;
+
+    SchoolDirectory(long version, HashMap<String, School> schoolDirectory) {
+        this.version = version;
+        schools = schoolDirectory.values().toArray(new School[0]);
+        Arrays.sort(schools, NAME_ORDER);
+        schoolList = Collections.unmodifiableList(Arrays.asList(schools));
+
+        HashMap<String, Integer> ordinalsByDbn = new HashMap<>();
+        HashMap<String, List<Integer>> boroughOrdinals = new HashMap<>();
+        for (int ordinal = 0; ordinal < schools.length; ordinal++) {
+            int schoolOrdinal = ordinal;
+            School school = schools[ordinal];
+            school.getDbn().ifPresent(dbn -> ordinalsByDbn.put(dbn, schoolOrdinal));
+            school.getBorough().ifPresent(borough -> boroughOrdinals
+                    .computeIfAbsent(borough, key -> new ArrayList<>())
+                    .add(schoolOrdinal));
+        }
+        HashMap<String, int[]> ordinalsByBorough = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : boroughOrdinals.entrySet()) {
+            int[] ordinals = new int[entry.getValue().size()];
+            for (int i = 0; i < ordinals.length; i++) {
+                ordinals[i] = entry.getValue().get(i);
+            }
+            ordinalsByBorough.put(entry.getKey(), ordinals);
+        }
+        this.ordinalsByDbn = Collections.unmodifiableMap(ordinalsByDbn);
+        this.ordinalsByBorough = Collections.unmodifiableMap(ordinalsByBorough);
+
+        searchIndex = new SchoolSearchIndex(schools);
+        satScores = new SatScores(schools);
+        rankings = new SchoolRankings(satScores, schools.length);
+    }
+
+    private SchoolDirectory(
+            long version, SchoolDirectory previous, School[] schools, int[] changedOrdinals) {
+        this.version = version;
+        this.schools = schools;
+        schoolList = Collections.unmodifiableList(Arrays.asList(schools));
+        ordinalsByDbn = previous.ordinalsByDbn;
+        ordinalsByBorough = previous.ordinalsByBorough;
+        searchIndex = previous.searchIndex;
+        satScores = previous.satScores.withChanges(schools, changedOrdinals);
+        // Changed scores can move any school in the rankings, so they are always recomputed.
+        rankings = new SchoolRankings(satScores, schools.length);
+    }
+
+    /**
+     * Returns a directory with the given version, in which the schools with the names of the
+     * changed schools are replaced by them, and the changed schools that are new are added.
+     *
+     * <p>If every changed school keeps the name, DBN and borough of the school it replaces, the
+     * new directory shares the indexes of this one and only copies the array of schools and the SAT
+     * score columns, and recomputes the rankings. Otherwise, it is built from scratch.
+     */
+    SchoolDirectory withChangedSchools(long version, List<School> changedSchools) {
+        School[] changed = schools.clone();
+        int[] changedOrdinals = new int[changedSchools.size()];
+        for (int i = 0; i < changedSchools.size(); i++) {
+            School school = changedSchools.get(i);
+            int ordinal = indexOf(school.getName());
+            if (ordinal < 0
+                    || !schools[ordinal].getDbn().equals(school.getDbn())
+                    || !schools[ordinal].getBorough().equals(school.getBorough())) {
+                return rebuildWith(version, changedSchools);
+            }
+            changed[ordinal] = school;
+            changedOrdinals[i] = ordinal;
+        }
+        return new SchoolDirectory(version, this, changed, changedOrdinals);
+    }
+
+    private SchoolDirectory rebuildWith(long version, List<School> changedSchools) {
+        HashMap<String, School> schoolDirectory = new HashMap<>(schools.length * 2);
+        for (School school : schools) {
+            schoolDirectory.put(school.getName(), school);
+        }
+        for (School school : changedSchools) {
+            schoolDirectory.put(school.getName(), school);
+        }
+        return new SchoolDirectory(version, schoolDirectory);
+    }
+
+    /**
+     * Returns true if every school has the same ordinal, name, DBN and borough in both directories,
+     * as is the case if one was created from the other by {@link #withChangedSchools} without
+     * being rebuilt. Only the SAT data of the schools can differ between them.
+     */
+    public boolean sharesOrdinalsWith(SchoolDirectory other) {
+        // The search index is only shared by directories with the same schools in the same order.
+        return searchIndex == other.searchIndex;
+    }
+
+    /** Returns the version of the directory. Later directories have higher versions. */
+    public long getVersion() {
+        return version;
+    }
+
+    /** Returns all schools sorted by name. The list is a view, so no copy is made. */
+    public List<School> getSchools() {
+        return schoolList;
+    }
+
+    public int size() {
+        return schools.length;
+    }
+
+    /** Returns the school at the given ordinal, i.e. its position in {@link #getSchools()}. */
+    public School getSchool(int ordinal) {
+        return schools[ordinal];
+    }
+
+    /** Returns the SAT scores of all schools, indexed by school ordinal. */
+    public SatScores getSatScores() {
+        return satScores;
+    }
+
+    /** Returns the rank and percentile of every school by every SAT score. */
+    public SchoolRankings getRankings() {
+        return rankings;
+    }
+
+    /** Returns Optional.empty() if the school does not exist in the directory. Otherwise, returns
+     * the {@link School} object that matches the school name.
+     */
+    public Optional<School> getSchoolData(String schoolName) {
+        int ordinal = indexOf(schoolName);
+        return ordinal < 0 ? Optional.empty() : Optional.of(schools[ordinal]);
+    }
+
+    /** Returns the ordinal of the school with the given name, or -1 if there is no such school. */
+    public int indexOf(String schoolName) {
+        int low = 0;
+        int high = schools.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int result = compareNames(schools[middle].getName(), schoolName);
+            if (result < 0) {
+                low = middle + 1;
+            } else if (result > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    public Optional<School> getSchoolByDbn(String dbn) {
+        Integer ordinal = ordinalsByDbn.get(dbn);
+        return ordinal == null ? Optional.empty() : Optional.of(schools[ordinal]);
+    }
+
+    /** Returns the schools in the borough sorted by name, or an empty list if there are none. */
+    public List<School> getSchoolsInBorough(String borough) {
+        int[] ordinals = ordinalsByBorough.get(borough);
+        if (ordinals == null) {
+            return Collections.emptyList();
+        }
+        return new AbstractList<School>() {
+            @Override
+            public School get(int index) {
+                return schools[ordinals[index]];
+            }
+
+            @Override
+            public int size() {
+                return ordinals.length;
+            }
+        };
+    }
+
+    /**
+     * Creates a result that can be passed to {@link #search} for this directory. It should be
+     * created once and reused for every search so that searching does not allocate.
+     */
+    public SchoolSearchResult newSearchResult() {
+        return new SchoolSearchResult(schools.length);
+    }
+
+    /**
+     * Finds the schools that have a word in their name starting with the query, ignoring case. A
+     * query with several words, e.g. "sch bronx", matches the schools that have a word starting
+     * with each of them, in any order. The ordinals of the matching schools are written to the
+     * result in name order. A query without any words matches every school.
+     */
+    public void search(CharSequence query, SchoolSearchResult result) {
+        searchIndex.search(query, result);
+    }
+
+    /**
+     * Finds the schools that match the text of the query, see {@link #search}, and that have at
+     * least its minimum values. Their ordinals are written to the result in the order of the
+     * query's sort key. The order comes from the precomputed {@link SchoolRankings}, so this takes
+     * time linear in the number of schools and does not allocate.
+     */
+    public void query(SchoolQuery query, SchoolSearchResult result) {
+        searchIndex.search(query.getText(), result);
+        if (query.getSortKey() == SchoolQuery.Key.NAME && !query.hasMinimums()) {
+            // The matches are already in name order.
+            return;
+        }
+        result.markAndClear();
+        for (int ordinal : rankings.getOrder(query.getSortKey())) {
+            if (result.unmark(ordinal) && query.matchesMinimums(satScores, ordinal)) {
+                result.add(ordinal);
+            }
+        }
+    }
+
+    private static int compareNames(String first, String second) {
+        int result = String.CASE_INSENSITIVE_ORDER.compare(first, second);
+        return result != 0 ? result : first.compareTo(second);
+    }
+}
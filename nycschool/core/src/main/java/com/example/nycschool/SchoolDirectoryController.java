@@ -0,0 +1,870 @@
+package com.example.nycschool;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import rx.Observable;
+import rx.Single;
+import rx.schedulers.Schedulers;
+import rx.subjects.PublishSubject;
+
+/**
+ * Controller that fetches the school directory data from
+ * (1) https://data.cityofnewyork.us/Education/2017-DOE-High-School-Directory/s3k6-pzi2 and
+ * (2) https://data.cityofnewyork.us/Education/2012-SAT-Results/f9bf-2cp4. The schools of the
+ * directory are the schools of (1), and the records of (2) are joined onto them, see
+ * {@link SatDataJoin}. SAT data is unavailable for schools that have no match in (2), and records
+ * of (2) that match no school in (1) are dropped.
+ *
+ * <p>In the {@link LoadingMode#EAGER_SAT} mode, all data is loaded up in the beginning. In the
+ * {@link LoadingMode#LAZY_SAT} mode, only the directory is loaded up front, and SAT scores are
+ * fetched "lazily" only when selecting a school for more data, or when it is scrolled near.
+ *
+ * <p>On the very first start the directory is loaded page by page, ordered by school name like
+ * the list, so the first schools can be shown before the rest have downloaded. The SAT data set is
+ * fetched in parallel with the first page and joined onto every page as it arrives. The first
+ * page is fetched right away and every following one when the list is scrolled near its end, and
+ * what has loaded so far is persisted with {@link SchoolDirectoryStore} after every page. On later
+ * starts the stored snapshot is shown right away and then revalidated against the server in the
+ * background. If a {@link BundledSnapshot} was packed into the app, the very first start shows it
+ * right away instead, stores it, and then only fetches the records that changed since it was
+ * generated.
+ *
+ * <p>Once loaded, the directory is refreshed every {@link #REFRESH_INTERVAL_MINUTES} minutes for
+ * as long as the UI is subscribed. A refresh only fetches the records that were updated on the
+ * server since the last sync, using the Socrata :updated_at system field, and applies them to
+ * the directory and the stored snapshot. Records deleted on the server are only noticed by the
+ * full revalidation on the next start.
+ *
+ * <p>There is one instance per process, so the directory is only loaded once no matter how many
+ * times the UI is recreated.
+ */
+@Singleton
+public class SchoolDirectoryController {
+    /** Names the directory in which the loaded data is persisted between starts. */
+    public static final String STORAGE_DIRECTORY = "storage_directory";
+    @VisibleForTesting
+    static final String SCHOOL_DIRECTORY_JSON = "https://data.cityofnewyork.us/resource/s3k6-pzi2.json";
+    @VisibleForTesting
+    static final String SCHOOL_SAT_DATA_JSON = "https://data.cityofnewyork.us/resource/f9bf-2cp4.json";
+    // The size of the first page. Every following page is as large as all pages before it.
+    @VisibleForTesting
+    static final int PAGE_SIZE = 100;
+    @VisibleForTesting
+    static final long REFRESH_INTERVAL_MINUTES = 15;
+    // The Socrata system field with the time a record was last updated.
+    static final String UPDATED_AT = ":updated_at";
+    // The only columns of the data sets that are read. Everything else is left on the server.
+    static final String[] DIRECTORY_COLUMNS =
+            {"dbn", "school_name", "borough", "overview_paragraph", UPDATED_AT};
+    static final String[] SAT_COLUMNS = {
+            "dbn",
+            "school_name",
+            UPDATED_AT,
+            "num_of_sat_test_takers",
+            "sat_critical_reading_avg_score",
+            "sat_math_avg_score",
+            "sat_writing_avg_score"
+    };
+    private static final Object NEXT_PAGE = new Object();
+    private static final int SAT_CACHE_SIZE = 100;
+    private static final SatRecordTypeAdapter SAT_RECORD_ADAPTER = new SatRecordTypeAdapter();
+
+    /** How the SAT data is loaded. */
+    public enum LoadingMode {
+        /** The SAT data of every school is loaded along with the directory. */
+        EAGER_SAT,
+        /** The SAT data is loaded per school when it is needed, and kept in an LRU cache. */
+        LAZY_SAT
+    }
+
+    private final JsonFetcher jsonFetcher;
+    private final SchoolDirectoryStore store;
+    private final BundledSnapshot bundledSnapshot;
+    private final LoadingMode loadingMode;
+    private final Metrics metrics;
+    // Only used in the LAZY_SAT mode.
+    private final SatDataCache satDataCache = new SatDataCache(SAT_CACHE_SIZE);
+    // Receives a value whenever the UI wants the next page of a paged load.
+    private final PublishSubject<Object> nextPageRequests = PublishSubject.create();
+    // True while a page is being fetched, so that repeated requests only load one page.
+    private final AtomicBoolean isPageLoading = new AtomicBoolean();
+    // The number of subscribers to the load. The directory is only refreshed while there are any.
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // Guarded by this. Null until the first call to initialize, or after a load has failed.
+    @Nullable private Observable<LoadResult> directoryLoad;
+    // Held while a new version of the directory is created and published, so that writers run one
+    // at a time and each starts from the version and snapshot the one before it left behind.
+    private final Object writeLock = new Object();
+    // The most recently loaded directory. Written on the background executor and read on the UI
+    // thread. Directories are immutable, so readers never lock and never see a partial update;
+    // writers publish a new version with publishDirectory.
+    private final AtomicReference<SchoolDirectory> schoolDirectory = new AtomicReference<>();
+    // The join the current directory was built with. Written while holding writeLock.
+    @Nullable private volatile SatDataJoin lastSatDataJoin;
+    // The data the current directory was built from, which refreshes apply their changes to. Null
+    // until the directory has fully loaded. Written while holding writeLock.
+    @Nullable private volatile SchoolDirectorySnapshot currentSnapshot;
+
+    @Inject
+    SchoolDirectoryController(
+            JsonFetcher jsonFetcher,
+            @Named(STORAGE_DIRECTORY) File storageDirectory,
+            BundledSnapshot bundledSnapshot,
+            LoadingMode loadingMode,
+            Metrics metrics) {
+        this.jsonFetcher = jsonFetcher;
+        this.store = new SchoolDirectoryStore(storageDirectory);
+        this.bundledSnapshot = bundledSnapshot;
+        this.loadingMode = loadingMode;
+        this.metrics = metrics;
+    }
+
+    public LoadingMode getLoadingMode() {
+        return loadingMode;
+    }
+
+    /**
+     * Returns the result of the last time the SAT data was joined onto the directory, with the
+     * number of SAT records that were matched, missed or duplicated, or Optional.empty() if the
+     * SAT data has not been joined yet.
+     */
+    public Optional<SatDataJoin> getLastSatDataJoin() {
+        return Optional.ofNullable(lastSatDataJoin);
+    }
+
+    /**
+     * Loads the directory. If there is an error loading the data, it will return a result with a
+     * {@link LoadError} instead of an update. The error is also recorded to {@link Metrics}. This
+     * method will fetch both the school data and the SAT data.
+     *
+     * <p>If a snapshot from a previous start is stored, it is emitted first. The data sets are then
+     * revalidated with conditional requests, and a second update is emitted only if either of them
+     * changed on the server. Otherwise, if a snapshot is bundled with the app, it is emitted first
+     * and then brought up to date with the records that changed since. Without either, the first
+     * page is emitted as soon as it has loaded, and every following page is emitted once it is
+     * requested with {@link #loadNextPage()}.
+     *
+     * <p>After that, an update with just the changed schools is emitted whenever a periodic
+     * refresh, scheduled on the executor, finds records that changed on the server.
+     *
+     * <p>Only one load ever runs at a time. Callers that arrive while it is in flight attach to it,
+     * and callers that arrive after it has finished receive the latest update. A load that failed
+     * is forgotten so that the next call tries again.
+     */
+    public synchronized Observable<LoadResult> initialize(
+            ScheduledExecutorService executor) {
+        if (directoryLoad == null) {
+            directoryLoad = load(executor)
+                    // Only refresh a directory that loaded.
+                    .concatWith(Observable.defer(() -> currentSnapshot != null
+                            ? refreshPeriodically(executor)
+                            : Observable.empty()))
+                    .doOnNext(result -> {
+                        if (result.getError().isPresent()) {
+                            clearFailedLoad();
+                        }
+                    })
+                    .replay(1)
+                    .autoConnect();
+        }
+        return directoryLoad
+                .doOnSubscribe(subscriberCount::incrementAndGet)
+                .doOnUnsubscribe(subscriberCount::decrementAndGet);
+    }
+
+    /**
+     * Requests the next page of a paged load. Does nothing if a page is already loading or if the
+     * directory is not being loaded page by page.
+     */
+    public void loadNextPage() {
+        if (isPageLoading.compareAndSet(false, true)) {
+            nextPageRequests.onNext(NEXT_PAGE);
+        }
+    }
+
+    /** Returns the most recently loaded directory, or Optional.empty() if none has loaded yet. */
+    public Optional<SchoolDirectory> getSchoolDirectory() {
+        return Optional.ofNullable(schoolDirectory.get());
+    }
+
+    /**
+     * Returns the SAT data of the school if it has been loaded lazily, or Optional.empty() if it
+     * has not been loaded yet. A school that has been loaded but is not in the SAT data set has SAT
+     * data with no values set.
+     */
+    public Optional<SchoolSatData> getLoadedSatData(School school) {
+        return school.getDbn().map(satDataCache::get);
+    }
+
+    /**
+     * Fetches the SAT data of a single school once subscribed to, unless it is already cached. If
+     * it is already being fetched, e.g. by {@link #prefetchSatData}, this waits for that fetch
+     * instead of requesting it again. Schools without a DBN cannot be looked up and get SAT data
+     * with no values set.
+     */
+    public Single<SchoolSatData> loadSatData(School school, ScheduledExecutorService executor) {
+        if (!school.getDbn().isPresent()) {
+            return Single.just(SchoolSatData.EMPTY);
+        }
+        String dbn = school.getDbn().get();
+        return Single.defer(() -> satDataCache
+                .fetch(Collections.singletonList(dbn), dbns -> fetchSatDataByDbn(dbns, executor))
+                .get(dbn));
+    }
+
+    /**
+     * Fetches the SAT data of the schools that are not cached or being fetched yet with a single
+     * request, so that it is ready by the time one of them is selected.
+     */
+    public void prefetchSatData(List<School> schools, ScheduledExecutorService executor) {
+        ArrayList<String> dbns = new ArrayList<>(schools.size());
+        for (School school : schools) {
+            school.getDbn().ifPresent(dbns::add);
+        }
+        if (!dbns.isEmpty()) {
+            satDataCache.fetch(dbns, missingDbns -> fetchSatDataByDbn(missingDbns, executor));
+        }
+    }
+
+    /**
+     * Fetches the SAT data of the schools with the DBNs. Schools that are not in the SAT data set
+     * get SAT data with no values set, so that they are cached too and not requested again.
+     */
+    private Single<HashMap<String, SchoolSatData>> fetchSatDataByDbn(
+            List<String> dbns, ScheduledExecutorService executor) {
+        StringBuilder dbnList = new StringBuilder();
+        for (String dbn : dbns) {
+            if (dbnList.length() > 0) {
+                dbnList.append(',');
+            }
+            dbnList.append(SoqlQuery.quote(dbn));
+        }
+        String satUrl = SoqlQuery.forDataSet(SCHOOL_SAT_DATA_JSON)
+                .select(SAT_COLUMNS)
+                .where("dbn in(" + dbnList + ")")
+                .toUrl();
+        return Single.defer(() -> {
+            HashMap<String, SchoolSatData> satDataByDbn = new HashMap<>();
+            return jsonFetcher
+                    .streamRecords(satUrl, HttpValidators.NONE, SAT_RECORD_ADAPTER, satRecord ->
+                            satRecord.getDbn().ifPresent(dbn -> satRecord.getSatData()
+                                    .ifPresent(satData -> satDataByDbn.put(dbn, satData))))
+                    .map(fetchResult -> {
+                        for (String dbn : dbns) {
+                            satDataByDbn.putIfAbsent(dbn, SchoolSatData.EMPTY);
+                        }
+                        return satDataByDbn;
+                    });
+        })
+                .subscribeOn(Schedulers.from(executor));
+    }
+
+    private synchronized void clearFailedLoad() {
+        directoryLoad = null;
+    }
+
+    private Observable<LoadResult> load(ScheduledExecutorService executor) {
+        return Observable
+                .fromCallable(store::read)
+                .subscribeOn(Schedulers.from(executor))
+                .flatMap(cachedSnapshot -> {
+                    if (cachedSnapshot.isPresent()) {
+                        SchoolDirectorySnapshot snapshot = cachedSnapshot.get();
+                        return showSnapshot(snapshot, revalidate(snapshot, executor));
+                    }
+                    Optional<SchoolDirectorySnapshot> bundled = readBundledSnapshot();
+                    if (bundled.isPresent()) {
+                        // Store it, so that from now on it is updated in place like any other
+                        // stored snapshot.
+                        writeSnapshot(bundled.get());
+                        return showSnapshot(
+                                bundled.get(), Observable.defer(() -> refresh(executor)));
+                    }
+                    return loadPages(executor)
+                            // Signals to the caller that there was an error.
+                            .onErrorReturn(error -> {
+                                LoadError loadError = LoadError.from(error);
+                                metrics.recordLoadError(loadError);
+                                return LoadResult.failed(loadError);
+                            });
+                });
+    }
+
+    /**
+     * Emits the directory of the snapshot right away, followed by whatever the update emits once
+     * it has caught up with the server. If the update fails, the snapshot keeps being shown.
+     */
+    private Observable<LoadResult> showSnapshot(
+            SchoolDirectorySnapshot snapshot, Observable<LoadResult> update) {
+        return Observable.concat(
+                Observable.just(LoadResult.of(createSchoolDirectoryUpdate(snapshot))),
+                update.onErrorResumeNext(error -> {
+                    metrics.recordLoadError(LoadError.from(error));
+                    return Observable.empty();
+                }));
+    }
+
+    /** Returns Optional.empty() if no snapshot is bundled or it could not be read. */
+    private Optional<SchoolDirectorySnapshot> readBundledSnapshot() {
+        try (InputStream in = bundledSnapshot.open()) {
+            return in == null ? Optional.empty() : SchoolDirectoryStore.read(in);
+        } catch (IOException e) {
+            // Swallow. The directory is loaded from the network instead.
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Loads the directory one page at a time, with the SAT data set fetched in full in parallel
+     * with the first page. The first page is loaded right away and the others when they are
+     * requested. Every page is emitted as an update containing all pages loaded so far, with the
+     * SAT data joined onto it.
+     *
+     * <p>Each page is as large as all pages before it, so that rebuilding the directory and
+     * storing it after every page takes time linear in the size of the directory overall. What has
+     * loaded so far is stored, so that a user who leaves before the last page still has the first
+     * ones on the next start. Until the last page, the stored snapshot is not synced up to any
+     * time, so the next start revalidates it in full.
+     */
+    private Observable<LoadResult> loadPages(ScheduledExecutorService executor) {
+        return Observable.defer(() -> {
+            HashMap<String, School> directorySchools = new HashMap<>();
+            HashMap<String, School> satData = new HashMap<>();
+            // Counts the records rather than the schools, which skip records without a name.
+            int[] offset = {0};
+            isPageLoading.set(true);
+            return nextPageRequests
+                    .startWith(NEXT_PAGE)
+                    .concatMap(request -> fetchPage(
+                            offset[0],
+                            Math.max(PAGE_SIZE, offset[0]),
+                            /*withSatData=*/ offset[0] == 0
+                                    && loadingMode == LoadingMode.EAGER_SAT,
+                            executor)
+                            .toObservable())
+                    .map(page -> {
+                        offset[0] += page.recordCount;
+                        SchoolDirectoryUpdate update = addPage(page, directorySchools, satData);
+                        isPageLoading.set(false);
+                        return LoadResult.of(update);
+                    })
+                    .takeUntil(result -> !result.getUpdate().get().hasMorePages());
+        });
+    }
+
+    /**
+     * Adds the page to the data loaded so far, stores the result and publishes the directory built
+     * from it. Returns an update with the schools of the page as the changed ones.
+     */
+    private SchoolDirectoryUpdate addPage(
+            Page page, HashMap<String, School> directorySchools, HashMap<String, School> satData) {
+        directorySchools.putAll(page.directorySchools);
+        satData.putAll(page.satData);
+        boolean hasMorePages = page.recordCount == page.limit;
+        synchronized (writeLock) {
+            SchoolDirectorySnapshot snapshot = new SchoolDirectorySnapshot(
+                    directorySchools,
+                    satData,
+                    HttpValidators.NONE,
+                    HttpValidators.NONE,
+                    hasMorePages ? null : getLatestUpdatedAt(directorySchools, null),
+                    hasMorePages ? null : getLatestUpdatedAt(satData, null));
+            writeSnapshot(snapshot);
+            if (!hasMorePages) {
+                currentSnapshot = snapshot;
+            }
+
+            HashMap<String, School> schoolDirectoryMap =
+                    mergeSatData(directorySchools, satData).getSchoolDirectory();
+            ArrayList<School> pageSchools = new ArrayList<>();
+            for (String name : page.directorySchools.keySet()) {
+                pageSchools.add(schoolDirectoryMap.get(name));
+            }
+            return createSchoolDirectoryUpdate(schoolDirectoryMap, pageSchools, hasMorePages);
+        }
+    }
+
+    /** A page of the directory, along with the SAT data set if it was fetched with the page. */
+    private static class Page {
+        final HashMap<String, School> directorySchools;
+        final HashMap<String, School> satData;
+        final int recordCount;
+        // The most records the page could have had. A page with fewer is the last one.
+        final int limit;
+
+        Page(
+                HashMap<String, School> directorySchools,
+                HashMap<String, School> satData,
+                int recordCount,
+                int limit) {
+            this.directorySchools = directorySchools;
+            this.satData = satData;
+            this.recordCount = recordCount;
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * Fetches a page of the directory, and the SAT data set at the same time if asked to. The SAT
+     * data set is not fetched per page, since the DBNs of the schools of a page are only known once
+     * the page has arrived, and records with an outdated DBN are only joined by name. It is small
+     * enough to fetch in full in the time the first page takes.
+     */
+    private Single<Page> fetchPage(
+            int offset, int limit, boolean withSatData, ScheduledExecutorService executor) {
+        String pageUrl = SoqlQuery.forDataSet(SCHOOL_DIRECTORY_JSON)
+                .select(DIRECTORY_COLUMNS)
+                // The order of the list, so that every page adds rows after the ones shown so far.
+                // The DBN breaks ties, since offsets are only stable if the order is total.
+                .order("school_name", "dbn")
+                .limit(limit)
+                .offset(offset)
+                .toUrl();
+        Single<FetchedData<HashMap<String, School>>> directoryFetch =
+                fetchSchoolDirectory(pageUrl, HttpValidators.NONE, executor);
+        if (!withSatData) {
+            return directoryFetch.map(directory ->
+                    new Page(directory.data, new HashMap<>(), directory.recordCount, limit));
+        }
+        return Single.zip(
+                directoryFetch,
+                fetchSatData(
+                        createFullUrl(SCHOOL_SAT_DATA_JSON, SAT_COLUMNS),
+                        HttpValidators.NONE,
+                        executor),
+                (directory, satData) ->
+                        new Page(directory.data, satData.data, directory.recordCount, limit));
+    }
+
+    /** Replaces the directory with the one built from the snapshot. */
+    private SchoolDirectoryUpdate createSchoolDirectoryUpdate(SchoolDirectorySnapshot snapshot) {
+        synchronized (writeLock) {
+            currentSnapshot = snapshot;
+            HashMap<String, School> schoolDirectoryMap =
+                    mergeSatData(snapshot.getDirectorySchools(), snapshot.getSatData())
+                            .getSchoolDirectory();
+            return createSchoolDirectoryUpdate(
+                    schoolDirectoryMap,
+                    new ArrayList<>(schoolDirectoryMap.values()),
+                    /*hasMorePages=*/ false);
+        }
+    }
+
+    private SchoolDirectoryUpdate createSchoolDirectoryUpdate(
+            HashMap<String, School> schoolDirectoryMap,
+            List<School> changedSchools,
+            boolean hasMorePages) {
+        SchoolDirectory schoolDirectory = publishDirectory(
+                (current, version) -> new SchoolDirectory(version, schoolDirectoryMap));
+        return new SchoolDirectoryUpdate(schoolDirectory, changedSchools, hasMorePages);
+    }
+
+    /** Creates the next version of the directory from the current one. */
+    private interface DirectoryWriter {
+        SchoolDirectory write(@Nullable SchoolDirectory current, long version);
+    }
+
+    /**
+     * Publishes the directory the writer creates from the current one, with the next version.
+     * Writers run one at a time while holding the write lock, so each one is given the directory
+     * the one before it published and no update is lost. Readers never take the lock.
+     */
+    private SchoolDirectory publishDirectory(DirectoryWriter writer) {
+        synchronized (writeLock) {
+            SchoolDirectory current = schoolDirectory.get();
+            SchoolDirectory next =
+                    writer.write(current, current == null ? 1 : current.getVersion() + 1);
+            schoolDirectory.set(next);
+            return next;
+        }
+    }
+
+    private void writeSnapshot(SchoolDirectorySnapshot snapshot) {
+        try {
+            store.write(snapshot);
+        } catch (IOException e) {
+            // Swallow. The snapshot is only an optimization for the next start.
+        }
+    }
+
+    /**
+     * Fetches both data sets, conditionally on the validators of the cached snapshot. Emits nothing
+     * if neither data set has changed. Otherwise, the data set that did not change is taken from
+     * the cached snapshot, and the new snapshot is stored before the resulting update is emitted.
+     */
+    private Observable<LoadResult> revalidate(
+            SchoolDirectorySnapshot cachedSnapshot, ScheduledExecutorService executor) {
+        Single<FetchedData<HashMap<String, School>>> satDataFetch;
+        if (loadingMode == LoadingMode.LAZY_SAT) {
+            // Treat the SAT data set as unchanged, so it is never fetched.
+            satDataFetch = Single.just(new FetchedData<>(
+                    null,
+                    new JsonFetcher.FetchResult(
+                            /*isNotModified=*/ true,
+                            cachedSnapshot.getSatValidators(),
+                            /*recordCount=*/ 0)));
+        } else {
+            satDataFetch = fetchSatData(
+                    createFullUrl(SCHOOL_SAT_DATA_JSON, SAT_COLUMNS),
+                    cachedSnapshot.getSatValidators(),
+                    executor);
+        }
+
+        // The two data sets are fetched and parsed in parallel, each into its own map, and
+        // then merged once both have arrived. Since neither fetch writes into a shared map, the
+        // resulting directory is the same regardless of which fetch finishes first.
+        return Single
+                .zip(
+                        fetchSchoolDirectory(
+                                createFullUrl(SCHOOL_DIRECTORY_JSON, DIRECTORY_COLUMNS),
+                                cachedSnapshot.getDirectoryValidators(),
+                                executor),
+                        satDataFetch,
+                        (directory, satData) -> {
+                            if (directory.data == null && satData.data == null) {
+                                return null;
+                            }
+                            return new SchoolDirectorySnapshot(
+                                    directory.data != null
+                                            ? directory.data
+                                            : cachedSnapshot.getDirectorySchools(),
+                                    satData.data != null
+                                            ? satData.data
+                                            : cachedSnapshot.getSatData(),
+                                    directory.validators,
+                                    satData.validators,
+                                    directory.data != null
+                                            ? getLatestUpdatedAt(directory.data, null)
+                                            : cachedSnapshot.getDirectorySyncedUpTo(),
+                                    satData.data != null
+                                            ? getLatestUpdatedAt(satData.data, null)
+                                            : cachedSnapshot.getSatSyncedUpTo());
+                        })
+                .toObservable()
+                .filter(snapshot -> snapshot != null)
+                .map(snapshot -> {
+                    writeSnapshot(snapshot);
+                    return LoadResult.of(createSchoolDirectoryUpdate(snapshot));
+                });
+    }
+
+    /** Refreshes the directory every {@link #REFRESH_INTERVAL_MINUTES} on the executor. */
+    private Observable<LoadResult> refreshPeriodically(ScheduledExecutorService executor) {
+        return Observable
+                .interval(
+                        REFRESH_INTERVAL_MINUTES,
+                        REFRESH_INTERVAL_MINUTES,
+                        TimeUnit.MINUTES,
+                        Schedulers.from(executor))
+                // Nobody would see the result, so save the request.
+                .filter(tick -> subscriberCount.get() > 0)
+                .concatMap(tick -> refresh(executor)
+                        // Keep the current directory and try again on the next tick.
+                        .onErrorResumeNext(error -> {
+                            metrics.recordLoadError(LoadError.from(error));
+                            return Observable.empty();
+                        }));
+    }
+
+    /**
+     * Fetches the records of both data sets that were updated since the current snapshot was
+     * synced, and applies them to it. Emits nothing if no record was updated. If the server did not
+     * report when the records were last updated, falls back to revalidating the whole data sets.
+     */
+    @VisibleForTesting
+    Observable<LoadResult> refresh(ScheduledExecutorService executor) {
+        SchoolDirectorySnapshot snapshot = currentSnapshot;
+        if (snapshot.getDirectorySyncedUpTo() == null
+                || (loadingMode == LoadingMode.EAGER_SAT && snapshot.getSatSyncedUpTo() == null)) {
+            return revalidate(snapshot, executor);
+        }
+        Single<FetchedData<HashMap<String, School>>> satDataFetch;
+        if (loadingMode == LoadingMode.LAZY_SAT) {
+            satDataFetch = Single.just(new FetchedData<>(
+                    new HashMap<>(),
+                    new JsonFetcher.FetchResult(
+                            /*isNotModified=*/ false, HttpValidators.NONE, /*recordCount=*/ 0)));
+        } else {
+            satDataFetch = fetchSatData(
+                    createDeltaUrl(SCHOOL_SAT_DATA_JSON, SAT_COLUMNS, snapshot.getSatSyncedUpTo()),
+                    HttpValidators.NONE,
+                    executor);
+        }
+        return Single
+                .zip(
+                        fetchSchoolDirectory(
+                                createDeltaUrl(
+                                        SCHOOL_DIRECTORY_JSON,
+                                        DIRECTORY_COLUMNS,
+                                        snapshot.getDirectorySyncedUpTo()),
+                                HttpValidators.NONE,
+                                executor),
+                        satDataFetch,
+                        (directory, satData) -> applyChanges(directory.data, satData.data))
+                .toObservable()
+                .filter(result -> result != null);
+    }
+
+    /** Returns the URL of all records of the data set. */
+    static String createFullUrl(String dataSetUrl, String[] columns) {
+        return SoqlQuery.forDataSet(dataSetUrl).select(columns).toUrl();
+    }
+
+    /**
+     * Returns the URL of the records of the data set that were updated after the given time, in
+     * the order they were updated in.
+     */
+    private static String createDeltaUrl(String dataSetUrl, String[] columns, String syncedUpTo) {
+        return SoqlQuery.forDataSet(dataSetUrl)
+                .select(columns)
+                .where(UPDATED_AT + " > " + SoqlQuery.quote(syncedUpTo))
+                .order(UPDATED_AT)
+                .toUrl();
+    }
+
+    /**
+     * Applies the changed records to the current snapshot and stores the result. Returns an update
+     * with only the changed schools, or null if there are no changes.
+     *
+     * <p>The changes are applied to whatever snapshot is current once the write lock is held,
+     * rather than the one the refresh started from, so that an update published in between is not
+     * lost.
+     */
+    @Nullable
+    private LoadResult applyChanges(
+            HashMap<String, School> changedDirectorySchools,
+            HashMap<String, School> changedSatRecords) {
+        if (changedDirectorySchools.isEmpty() && changedSatRecords.isEmpty()) {
+            return null;
+        }
+        synchronized (writeLock) {
+            SchoolDirectorySnapshot snapshot = currentSnapshot;
+            HashSet<String> changedDbns = new HashSet<>();
+            HashSet<String> changedNames = new HashSet<>();
+            for (School school : changedDirectorySchools.values()) {
+                school.getDbn().ifPresent(changedDbns::add);
+                changedNames.add(school.getName());
+            }
+            HashMap<String, School> directorySchools =
+                    new HashMap<>(snapshot.getDirectorySchools());
+            // Schools are keyed by name, so remove the old record first in case the school was
+            // renamed.
+            directorySchools.values().removeIf(
+                    school -> school.getDbn().map(changedDbns::contains).orElse(false));
+            directorySchools.putAll(changedDirectorySchools);
+
+            HashMap<String, School> satData = new HashMap<>(snapshot.getSatData());
+            satData.putAll(changedSatRecords);
+
+            SchoolDirectorySnapshot changedSnapshot = new SchoolDirectorySnapshot(
+                    directorySchools,
+                    satData,
+                    snapshot.getDirectoryValidators(),
+                    snapshot.getSatValidators(),
+                    getLatestUpdatedAt(changedDirectorySchools, snapshot.getDirectorySyncedUpTo()),
+                    getLatestUpdatedAt(changedSatRecords, snapshot.getSatSyncedUpTo()));
+            writeSnapshot(changedSnapshot);
+            currentSnapshot = changedSnapshot;
+
+            SatDataJoin previousJoin = lastSatDataJoin;
+            SatDataJoin satDataJoin = mergeSatData(directorySchools, satData);
+            // A changed SAT record changes the school it is joined onto, which need not have its
+            // DBN or name, e.g. if it was matched by normalized name. If the record now joins
+            // another school, the school it was joined onto before loses its SAT data.
+            for (String satRecordKey : changedSatRecords.keySet()) {
+                satDataJoin.getJoinedSchoolName(satRecordKey).ifPresent(changedNames::add);
+                if (previousJoin != null) {
+                    previousJoin.getJoinedSchoolName(satRecordKey).ifPresent(changedNames::add);
+                }
+            }
+            HashMap<String, School> schoolDirectoryMap = satDataJoin.getSchoolDirectory();
+            ArrayList<School> changedSchools = new ArrayList<>();
+            for (String name : changedNames) {
+                School school = schoolDirectoryMap.get(name);
+                if (school != null) {
+                    changedSchools.add(school);
+                }
+            }
+            // Share the indexes of the current directory unless a school was renamed, in which
+            // case its old entry has to go.
+            SchoolDirectory schoolDirectory = publishDirectory((current, version) ->
+                    current != null && !hasRenamedSchools(current, changedSchools)
+                            ? current.withChangedSchools(version, changedSchools)
+                            : new SchoolDirectory(version, schoolDirectoryMap));
+            return LoadResult.of(
+                    new SchoolDirectoryUpdate(
+                            schoolDirectory, changedSchools, /*hasMorePages=*/ false));
+        }
+    }
+
+    private static boolean hasRenamedSchools(
+            SchoolDirectory schoolDirectory, List<School> changedSchools) {
+        for (School school : changedSchools) {
+            Optional<School> currentSchool =
+                    school.getDbn().flatMap(schoolDirectory::getSchoolByDbn);
+            if (currentSchool.isPresent()
+                    && !currentSchool.get().getName().equals(school.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the latest :updated_at of the records, or the given time if it is later. The
+     * timestamps all have the same ISO 8601 format, so they can be compared as strings.
+     */
+    @Nullable
+    static String getLatestUpdatedAt(
+            HashMap<String, School> records, @Nullable String latestUpdatedAt) {
+        for (School record : records.values()) {
+            String updatedAt = record.getUpdatedAt().orElse(null);
+            if (updatedAt != null
+                    && (latestUpdatedAt == null || updatedAt.compareTo(latestUpdatedAt) > 0)) {
+                latestUpdatedAt = updatedAt;
+            }
+        }
+        return latestUpdatedAt;
+    }
+
+    /**
+     * A data set fetched by a conditional request. The data is null if the server replied that it
+     * has not been modified.
+     */
+    private static class FetchedData<T> {
+        @Nullable final T data;
+        final HttpValidators validators;
+        final int recordCount;
+
+        FetchedData(@Nullable T data, JsonFetcher.FetchResult fetchResult) {
+            this.data = fetchResult.isNotModified() ? null : data;
+            this.validators = fetchResult.getValidators();
+            this.recordCount = fetchResult.getRecordCount();
+        }
+    }
+
+    /**
+     * Generates the school directory map with the schools in the directory json resource. Records
+     * are parsed as they are streamed in so that the full payload is never held in memory.
+     */
+    private Single<FetchedData<HashMap<String, School>>> fetchSchoolDirectory(
+            String jsonUrl, HttpValidators validators, ScheduledExecutorService executor) {
+        return Single.defer(() -> {
+            // Keeps the order of the records, which for a page is the order of the names.
+            HashMap<String, School> schoolDirectoryMap = new LinkedHashMap<>();
+            int[] skippedCount = {0};
+            return jsonFetcher
+                    .streamRecords(
+                            jsonUrl,
+                            validators,
+                            new SchoolTypeAdapter(),
+                            school -> {
+                                if (!addSchool(schoolDirectoryMap, school)) {
+                                    skippedCount[0]++;
+                                }
+                            })
+                    .map(fetchResult -> {
+                        recordSkippedCount(fetchResult, skippedCount[0]);
+                        return new FetchedData<>(schoolDirectoryMap, fetchResult);
+                    });
+        })
+                // Makes the network request and parses the data on provided executor.
+                .subscribeOn(Schedulers.from(executor));
+    }
+
+    /** Generates a mapping from DBN to the SAT record in the SAT json resource. */
+    private Single<FetchedData<HashMap<String, School>>> fetchSatData(
+            String jsonUrl, HttpValidators validators, ScheduledExecutorService executor) {
+        return Single.defer(() -> {
+            HashMap<String, School> satDataMap = new HashMap<>();
+            int[] skippedCount = {0};
+            return jsonFetcher
+                    .streamRecords(
+                            jsonUrl,
+                            validators,
+                            SAT_RECORD_ADAPTER,
+                            satRecord -> {
+                                if (!addSatData(satDataMap, satRecord)) {
+                                    skippedCount[0]++;
+                                }
+                            })
+                    .map(fetchResult -> {
+                        recordSkippedCount(fetchResult, skippedCount[0]);
+                        return new FetchedData<>(satDataMap, fetchResult);
+                    });
+        })
+                .subscribeOn(Schedulers.from(executor));
+    }
+
+    /** Returns false if the school was skipped. */
+    static boolean addSchool(HashMap<String, School> schoolDirectory, School school) {
+        if (school.getName() == null) {
+            // Skip. The skipped records are counted in the metrics.
+            return false;
+        }
+        schoolDirectory.put(school.getName(), school);
+        return true;
+    }
+
+    /** Returns false if the SAT record was skipped. */
+    static boolean addSatData(HashMap<String, School> satDataMap, School satRecord) {
+        if (satRecord.getName() == null || !satRecord.getSatData().isPresent()) {
+            // Skip. The skipped records are counted in the metrics.
+            return false;
+        }
+        // Key on the DBN, since names are not unique across the SAT data set.
+        satDataMap.put(satRecord.getDbn().orElse(satRecord.getName()), satRecord);
+        return true;
+    }
+
+    private void recordSkippedCount(JsonFetcher.FetchResult fetchResult, int skippedCount) {
+        if (!fetchResult.isNotModified()) {
+            metrics.recordValue(Metrics.RECORDS_SKIPPED, skippedCount);
+        }
+    }
+
+    /**
+     * Joins the SAT records onto the directory schools, see {@link SatDataJoin}, and keeps the
+     * result so its counts can be reported. The counts are also recorded to {@link Metrics}. Only
+     * called while holding the write lock.
+     */
+    private SatDataJoin mergeSatData(
+            HashMap<String, School> directorySchools, HashMap<String, School> satRecords) {
+        Metrics.Span joinSpan = metrics.startSpan(Metrics.SAT_JOIN_TIME);
+        SatDataJoin satDataJoin = SatDataJoin.join(directorySchools, satRecords);
+        joinSpan.end();
+        lastSatDataJoin = satDataJoin;
+
+        int satRecordCount = satDataJoin.getMatchCount()
+                + satDataJoin.getMissCount()
+                + satDataJoin.getDuplicateCount();
+        if (satRecordCount > 0) {
+            metrics.recordValue(
+                    Metrics.SAT_JOIN_HIT_RATE, 100L * satDataJoin.getMatchCount() / satRecordCount);
+        }
+        metrics.recordValue(Metrics.SAT_JOIN_MISSES, satDataJoin.getMissCount());
+        metrics.recordValue(Metrics.SAT_JOIN_DUPLICATES, satDataJoin.getDuplicateCount());
+        return satDataJoin;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.nycschool;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+
+/**
+ * The parsed contents of both data sets along with the validators they were fetched with. Each data
+ * set is kept separately so that when only one of them changes on the server, the other one does
+ * not need to be fetched or parsed again.
+ */
+public class SchoolDirectorySnapshot {
+    private final HashMap<String, School> directorySchools;
+    private final HashMap<String, School> satData;
+    private final HttpValidators directoryValidators;
+    private final HttpValidators satValidators;
+    @Nullable private final String directorySyncedUpTo;
+    @Nullable private final String satSyncedUpTo;
+
+    SchoolDirectorySnapshot(
+            HashMap<String, School> directorySchools,
+            HashMap<String, School> satData,
+            HttpValidators directoryValidators,
+            HttpValidators satValidators,
+            @Nullable String directorySyncedUpTo,
+            @Nullable String satSyncedUpTo) {
+        this.directorySchools = directorySchools;
+        this.satData = satData;
+        this.directoryValidators = directoryValidators;
+        this.satValidators = satValidators;
+        this.directorySyncedUpTo = directorySyncedUpTo;
+        this.satSyncedUpTo = satSyncedUpTo;
+    }
+
+    /** Mapping from school name to the {@link School} as listed in the directory data set. */
+    public HashMap<String, School> getDirectorySchools() {
+        return directorySchools;
+    }
+
+    /**
+     * The records of the SAT data set, each a {@link School} with only its name, DBN and SAT data
+     * set. They are keyed by DBN, or by name for records without one.
+     */
+    public HashMap<String, School> getSatData() {
+        return satData;
+    }
+
+    public HttpValidators getDirectoryValidators() {
+        return directoryValidators;
+    }
+
+    public HttpValidators getSatValidators() {
+        return satValidators;
+    }
+
+    /**
+     * The :updated_at of the most recently updated record of the directory data set, so that the
+     * next refresh only fetches the records updated after it. Null if it is not known.
+     */
+    @Nullable
+    public String getDirectorySyncedUpTo() {
+        return directorySyncedUpTo;
+    }
+
+    /** Same as {@link #getDirectorySyncedUpTo()}, for the SAT data set. */
+    @Nullable
+    public String getSatSyncedUpTo() {
+        return satSyncedUpTo;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.nycschool;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Persists a {@link SchoolDirectorySnapshot} to local storage in a compact binary format so that
+ * the directory can be shown on the next start before any network request has completed.
+ *
+ * <p>The snapshot bundled with the app, see {@link BundledSnapshotGenerator}, has the same format.
+ */
+public class SchoolDirectoryStore {
+    private static final String FILE_NAME = "school_directory.bin";
+    // Bump the version whenever the format changes. Files with another version are ignored.
+    private static final int MAGIC = 0x4e594353;
+    private static final int VERSION = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+
+    SchoolDirectoryStore(File directory) {
+        this.file = new File(directory, FILE_NAME);
+    }
+
+    /**
+     * Returns Optional.empty() if there is no snapshot or it could not be read. A corrupt or
+     * outdated snapshot is treated the same as a missing one since the data can be fetched again.
+     */
+    public Optional<SchoolDirectorySnapshot> read() {
+        if (!file.exists()) {
+            return Optional.empty();
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Reads a snapshot from the stream, see {@link #read()}. Does not close the stream. */
+    static Optional<SchoolDirectorySnapshot> read(InputStream stream) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stream, BUFFER_SIZE));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return Optional.empty();
+            }
+            HttpValidators directoryValidators = readValidators(in);
+            HttpValidators satValidators = readValidators(in);
+            String directorySyncedUpTo = readString(in);
+            String satSyncedUpTo = readString(in);
+
+            int schoolCount = in.readInt();
+            HashMap<String, School> directorySchools = new HashMap<>(schoolCount * 2);
+            Overview.Allocator overviewAllocator = new Overview.Allocator();
+            for (int i = 0; i < schoolCount; i++) {
+                School school = School.builder()
+                        .setName(readString(in))
+                        .setDbn(readString(in))
+                        .setBorough(readString(in))
+                        .setOverview(readOverview(in, overviewAllocator))
+                        .build();
+                directorySchools.put(school.getName(), school);
+            }
+
+            int satCount = in.readInt();
+            HashMap<String, School> satData = new HashMap<>(satCount * 2);
+            for (int i = 0; i < satCount; i++) {
+                String key = readString(in);
+                School.Builder satRecord = School.builder()
+                        .setName(readString(in))
+                        .setDbn(readString(in));
+                SchoolSatData.Builder schoolSatData = SchoolSatData.builder();
+                readScore(in).ifPresent(schoolSatData::setNumTestTakers);
+                readScore(in).ifPresent(schoolSatData::setAvgReadingScore);
+                readScore(in).ifPresent(schoolSatData::setAvgMathScore);
+                readScore(in).ifPresent(schoolSatData::setAvgWritingScore);
+                satData.put(key, satRecord.setSatData(schoolSatData.build()).build());
+            }
+            return Optional.of(new SchoolDirectorySnapshot(
+                    directorySchools,
+                    satData,
+                    directoryValidators,
+                    satValidators,
+                    directorySyncedUpTo,
+                    satSyncedUpTo));
+        } catch (IOException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file first and then renames it, so that a crash in the
+     * middle of writing never leaves a partial snapshot behind.
+     */
+    public void write(SchoolDirectorySnapshot snapshot) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tempFile)) {
+            write(snapshot, out);
+        }
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /** Writes the snapshot to the stream, see {@link #write(SchoolDirectorySnapshot)}. */
+    static void write(SchoolDirectorySnapshot snapshot, OutputStream stream) throws IOException {
+        DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeValidators(out, snapshot.getDirectoryValidators());
+        writeValidators(out, snapshot.getSatValidators());
+        writeString(out, snapshot.getDirectorySyncedUpTo());
+        writeString(out, snapshot.getSatSyncedUpTo());
+
+        out.writeInt(snapshot.getDirectorySchools().size());
+        for (School school : snapshot.getDirectorySchools().values()) {
+            writeString(out, school.getName());
+            writeString(out, school.getDbn().orElse(null));
+            writeString(out, school.getBorough().orElse(null));
+            writeOverview(out, school.getOverview().orElse(null));
+        }
+
+        out.writeInt(snapshot.getSatData().size());
+        for (Map.Entry<String, School> entry : snapshot.getSatData().entrySet()) {
+            School satRecord = entry.getValue();
+            SchoolSatData schoolSatData = satRecord.getSatData().orElse(SchoolSatData.EMPTY);
+            writeString(out, entry.getKey());
+            writeString(out, satRecord.getName());
+            writeString(out, satRecord.getDbn().orElse(null));
+            writeScore(out, schoolSatData.getNumTestTakers());
+            writeScore(out, schoolSatData.getAvgReadingScore());
+            writeScore(out, schoolSatData.getAvgMathScore());
+            writeScore(out, schoolSatData.getAvgWritingScore());
+        }
+        // Flush, but do not close, the buffer.
+        out.flush();
+    }
+
+    private static HttpValidators readValidators(DataInputStream in) throws IOException {
+        return new HttpValidators(readString(in), readString(in));
+    }
+
+    private static void writeValidators(DataOutputStream out, HttpValidators validators)
+            throws IOException {
+        writeString(out, validators.getEtag());
+        writeString(out, validators.getLastModified());
+    }
+
+    private static OptionalInt readScore(DataInputStream in) throws IOException {
+        int score = in.readInt();
+        return score == SatScores.MISSING ? OptionalInt.empty() : OptionalInt.of(score);
+    }
+
+    private static void writeScore(DataOutputStream out, OptionalInt score) throws IOException {
+        out.writeInt(score.orElse(SatScores.MISSING));
+    }
+
+    /** Strings are written as their UTF-8 byte length followed by the bytes. Null is length -1. */
+    @Nullable
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Overviews are written like strings, but are read and written without decoding them. */
+    @Nullable
+    private static Overview readOverview(DataInputStream in, Overview.Allocator overviewAllocator)
+            throws IOException {
+        int length = in.readInt();
+        return length < 0 ? null : overviewAllocator.read(in, length);
+    }
+
+    private static void writeOverview(DataOutputStream out, @Nullable Overview overview)
+            throws IOException {
+        if (overview == null) {
+            out.writeInt(-1);
+        } else {
+            overview.writeTo(out);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String string)
+            throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
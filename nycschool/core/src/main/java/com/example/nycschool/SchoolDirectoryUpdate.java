@@ -0,0 +1,39 @@
+package com.example.nycschool;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A change to the school directory: the directory as it is after the change, along with the
+ * schools that were added or changed by it.
+ */
+public class SchoolDirectoryUpdate {
+    private final SchoolDirectory schoolDirectory;
+    private final List<School> changedSchools;
+    private final boolean hasMorePages;
+
+    SchoolDirectoryUpdate(
+            SchoolDirectory schoolDirectory, List<School> changedSchools, boolean hasMorePages) {
+        this.schoolDirectory = schoolDirectory;
+        this.changedSchools = Collections.unmodifiableList(changedSchools);
+        this.hasMorePages = hasMorePages;
+    }
+
+    /** Returns the whole directory after this update. */
+    public SchoolDirectory getSchoolDirectory() {
+        return schoolDirectory;
+    }
+
+    /** Returns the schools that were added or changed by this update. */
+    public List<School> getChangedSchools() {
+        return changedSchools;
+    }
+
+    /**
+     * Returns true if the directory is still being loaded page by page and more pages can be
+     * requested with {@link SchoolDirectoryController#loadNextPage()}.
+     */
+    public boolean hasMorePages() {
+        return hasMorePages;
+    }
+}
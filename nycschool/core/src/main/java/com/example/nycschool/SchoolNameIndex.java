@@ -0,0 +1,94 @@
+package com.example.nycschool;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Looks schools up by a normalized form of their name, in which case and every character other
+ * than letters and digits are ignored. For example "Clinton School Writers & Artists, M.S. 260" and
+ * "CLINTON SCHOOL WRITERS ARTISTS MS 260" are the same name.
+ *
+ * <p>The index is an open addressing hash table. Names are hashed and compared by walking their
+ * characters and skipping the ignored ones, so a lookup does not allocate a normalized copy of the
+ * name. When several schools have the same normalized name, the first one added is kept.
+ */
+class SchoolNameIndex {
+    private final School[] slots;
+    private final int[] hashes;
+    private final int mask;
+
+    SchoolNameIndex(int expectedSize) {
+        // Keep the table at most half full so probe sequences stay short.
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 1) * 2 - 1) << 1;
+        slots = new School[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /** Adds the school unless a school with the same normalized name was added before. */
+    void add(School school) {
+        String name = school.getName();
+        if (name == null) {
+            return;
+        }
+        int hash = hash(name);
+        int slot = hash & mask;
+        while (slots[slot] != null) {
+            if (hashes[slot] == hash && normalizedEquals(slots[slot].getName(), name)) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = school;
+        hashes[slot] = hash;
+    }
+
+    /** Returns the school with the same normalized name, or null if there is none. */
+    @Nullable
+    School get(@Nullable String name) {
+        if (name == null) {
+            return null;
+        }
+        int hash = hash(name);
+        int slot = hash & mask;
+        while (slots[slot] != null) {
+            if (hashes[slot] == hash && normalizedEquals(slots[slot].getName(), name)) {
+                return slots[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private static int hash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                hash = 31 * hash + Character.toUpperCase(c);
+            }
+        }
+        // Spread the high bits, since only the low bits pick the slot.
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean normalizedEquals(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (true) {
+            while (i < a.length() && !Character.isLetterOrDigit(a.charAt(i))) {
+                i++;
+            }
+            while (j < b.length() && !Character.isLetterOrDigit(b.charAt(j))) {
+                j++;
+            }
+            if (i == a.length() || j == b.length()) {
+                return i == a.length() && j == b.length();
+            }
+            if (Character.toUpperCase(a.charAt(i)) != Character.toUpperCase(b.charAt(j))) {
+                return false;
+            }
+            i++;
+            j++;
+        }
+    }
+}
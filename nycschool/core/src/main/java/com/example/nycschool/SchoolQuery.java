@@ -0,0 +1,98 @@
+package com.example.nycschool;
+
+import java.util.Arrays;
+
+/**
+ * A query for {@link SchoolDirectory#query}: the schools whose names match the search text and
+ * that have at least the minimum values set for any of the keys, sorted by one of the keys.
+ * Queries are immutable. Each method returns a copy with one thing changed.
+ */
+public class SchoolQuery {
+    /** What schools can be sorted and filtered by. Every key but the name sorts highest first. */
+    public enum Key {
+        NAME,
+        /** The sum of the average reading, math and writing scores. */
+        COMPOSITE_SCORE,
+        NUM_TEST_TAKERS,
+        AVG_READING_SCORE,
+        AVG_MATH_SCORE,
+        AVG_WRITING_SCORE
+    }
+
+    private static final int[] NO_MINIMUMS = createNoMinimums();
+
+    /** Matches every school, sorted by name. */
+    public static final SchoolQuery ALL = new SchoolQuery("", Key.NAME, NO_MINIMUMS);
+
+    private final String text;
+    private final Key sortKey;
+    // Indexed by key ordinal. SatScores.MISSING for the keys without a minimum.
+    private final int[] minimums;
+
+    private SchoolQuery(String text, Key sortKey, int[] minimums) {
+        this.text = text;
+        this.sortKey = sortKey;
+        this.minimums = minimums;
+    }
+
+    /**
+     * Returns a copy that matches the schools with a word in their name starting with each word of
+     * the text.
+     */
+    public SchoolQuery withText(CharSequence text) {
+        return new SchoolQuery(text.toString(), sortKey, minimums);
+    }
+
+    public SchoolQuery sortedBy(Key sortKey) {
+        return new SchoolQuery(text, sortKey, minimums);
+    }
+
+    /**
+     * Returns a copy that only matches the schools with at least the given value for the key.
+     * Schools without a value for it never match. The name has no value, so it cannot be used.
+     */
+    public SchoolQuery withMinimum(Key key, int minimum) {
+        if (key == Key.NAME || minimum < 0) {
+            throw new IllegalArgumentException("Invalid minimum " + minimum + " for " + key);
+        }
+        int[] changedMinimums = minimums.clone();
+        changedMinimums[key.ordinal()] = minimum;
+        return new SchoolQuery(text, sortKey, changedMinimums);
+    }
+
+    public SchoolQuery withoutMinimum(Key key) {
+        int[] changedMinimums = minimums.clone();
+        changedMinimums[key.ordinal()] = SatScores.MISSING;
+        return new SchoolQuery(text, sortKey, changedMinimums);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Key getSortKey() {
+        return sortKey;
+    }
+
+    boolean hasMinimums() {
+        return !Arrays.equals(minimums, NO_MINIMUMS);
+    }
+
+    /** Returns true if the school at the ordinal has at least the minimum value for every key. */
+    boolean matchesMinimums(SatScores scores, int ordinal) {
+        for (int key = 0; key < minimums.length; key++) {
+            int minimum = minimums[key];
+            if (minimum != SatScores.MISSING
+                    && SchoolRankings.getValue(key, scores, ordinal) < minimum) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] createNoMinimums() {
+        int[] minimums = new int[Key.values().length];
+        Arrays.fill(minimums, SatScores.MISSING);
+        return minimums;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.nycschool;
+
+import java.util.Arrays;
+
+/**
+ * The schools of a {@link SchoolDirectory} in the order of every {@link SchoolQuery.Key}, and the
+ * rank and percentile of each school by every key but the name. They are computed once when the
+ * directory is created, so sorting the result of a query is a walk over a precomputed permutation
+ * that never compares two schools.
+ */
+public class SchoolRankings {
+    private static final SchoolQuery.Key[] KEYS = SchoolQuery.Key.values();
+
+    // Indexed by key ordinal. The school ordinals in the order of the key: highest value first,
+    // ties and then the schools without a value in name order.
+    private final int[][] orders;
+    // Indexed by key ordinal and then school ordinal. SatScores.MISSING if there is no value.
+    private final int[][] ranks;
+    private final int[][] percentiles;
+    private final int[] rankedCounts;
+
+    SchoolRankings(SatScores scores, int schoolCount) {
+        orders = new int[KEYS.length][];
+        ranks = new int[KEYS.length][];
+        percentiles = new int[KEYS.length][];
+        rankedCounts = new int[KEYS.length];
+
+        // The schools are already in name order.
+        int[] nameOrder = new int[schoolCount];
+        for (int ordinal = 0; ordinal < schoolCount; ordinal++) {
+            nameOrder[ordinal] = ordinal;
+        }
+        int[] unranked = new int[schoolCount];
+        Arrays.fill(unranked, SatScores.MISSING);
+        orders[SchoolQuery.Key.NAME.ordinal()] = nameOrder;
+        ranks[SchoolQuery.Key.NAME.ordinal()] = unranked;
+        percentiles[SchoolQuery.Key.NAME.ordinal()] = unranked;
+
+        // Sorted as primitive longs, each with the value negated in the high bits and the ordinal
+        // in the low bits, which orders by value descending and then by name without boxing.
+        long[] sortKeys = new long[schoolCount];
+        for (int key = 0; key < KEYS.length; key++) {
+            if (KEYS[key] == SchoolQuery.Key.NAME) {
+                continue;
+            }
+            int rankedCount = 0;
+            for (int ordinal = 0; ordinal < schoolCount; ordinal++) {
+                int value = getValue(key, scores, ordinal);
+                if (value != SatScores.MISSING) {
+                    sortKeys[rankedCount++] = ((long) (Integer.MAX_VALUE - value) << 32) | ordinal;
+                }
+            }
+            Arrays.sort(sortKeys, 0, rankedCount);
+
+            int[] order = new int[schoolCount];
+            int[] rank = new int[schoolCount];
+            int[] percentile = new int[schoolCount];
+            Arrays.fill(rank, SatScores.MISSING);
+            Arrays.fill(percentile, SatScores.MISSING);
+            int start = 0;
+            while (start < rankedCount) {
+                // Schools with the same value share the rank of the first of them.
+                long value = sortKeys[start] >>> 32;
+                int end = start + 1;
+                while (end < rankedCount && sortKeys[end] >>> 32 == value) {
+                    end++;
+                }
+                for (int i = start; i < end; i++) {
+                    int ordinal = (int) sortKeys[i];
+                    order[i] = ordinal;
+                    rank[ordinal] = start + 1;
+                    percentile[ordinal] = (int) (100L * (rankedCount - end) / rankedCount);
+                }
+                start = end;
+            }
+            int position = rankedCount;
+            for (int ordinal = 0; ordinal < schoolCount; ordinal++) {
+                if (rank[ordinal] == SatScores.MISSING) {
+                    order[position++] = ordinal;
+                }
+            }
+            orders[key] = order;
+            ranks[key] = rank;
+            percentiles[key] = percentile;
+            rankedCounts[key] = rankedCount;
+        }
+    }
+
+    /**
+     * Returns the rank of the school by the key, where 1 is the highest. Schools with the same
+     * value have the same rank. Returns {@link SatScores#MISSING} if the school has no value for
+     * the key, and always for the name.
+     */
+    public int getRank(SchoolQuery.Key key, int ordinal) {
+        return ranks[key.ordinal()][ordinal];
+    }
+
+    /**
+     * Returns the percentage, from 0 to 99, of the ranked schools that have a lower value for the
+     * key than the school. Returns {@link SatScores#MISSING} where {@link #getRank} does.
+     */
+    public int getPercentile(SchoolQuery.Key key, int ordinal) {
+        return percentiles[key.ordinal()][ordinal];
+    }
+
+    /** Returns the number of schools that have a value for the key, and so a rank. */
+    public int getRankedCount(SchoolQuery.Key key) {
+        return rankedCounts[key.ordinal()];
+    }
+
+    /** Returns the school ordinals in the order of the key. The array must not be modified. */
+    int[] getOrder(SchoolQuery.Key key) {
+        return orders[key.ordinal()];
+    }
+
+    /** Returns the value of the key with the given ordinal, or MISSING if there is none. */
+    static int getValue(int key, SatScores scores, int ordinal) {
+        switch (KEYS[key]) {
+            case COMPOSITE_SCORE:
+                return scores.getCompositeScore(ordinal);
+            case NUM_TEST_TAKERS:
+                return scores.get(SatScores.Field.NUM_TEST_TAKERS, ordinal);
+            case AVG_READING_SCORE:
+                return scores.get(SatScores.Field.AVG_READING_SCORE, ordinal);
+            case AVG_MATH_SCORE:
+                return scores.get(SatScores.Field.AVG_MATH_SCORE, ordinal);
+            case AVG_WRITING_SCORE:
+                return scores.get(SatScores.Field.AVG_WRITING_SCORE, ordinal);
+            default:
+                return SatScores.MISSING;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.nycschool;
+
+import java.util.OptionalInt;
+
+/**
+ * Immutable value of the SAT data and scores for a school. The getters in this class will return
+ * empty optionals for values that were never set, since it's possible that the data set did not
+ * contain an int. This is how a missing score is told apart from a score of 0.
+ *
+ * <p>Instances are created with a {@link Builder} while the data is read, and every field is
+ * final, so like a {@link School} they can be handed to another thread without any
+ * synchronization.
+ */
+public class SchoolSatData {
+    /** SAT data with no values set. */
+    static final SchoolSatData EMPTY = builder().build();
+
+    private static final int NUM_TEST_TAKERS = 1;
+    private static final int AVG_READING_SCORE = 1 << 1;
+    private static final int AVG_MATH_SCORE = 1 << 2;
+    private static final int AVG_WRITING_SCORE = 1 << 3;
+
+    private final int numTestTakers;
+    private final int avgReadingScore;
+    private final int avgMathScore;
+    private final int avgWritingScore;
+    // Bit flags for the values that have been set.
+    private final int presentValues;
+
+    private SchoolSatData(Builder builder) {
+        this.numTestTakers = builder.numTestTakers;
+        this.avgReadingScore = builder.avgReadingScore;
+        this.avgMathScore = builder.avgMathScore;
+        this.avgWritingScore = builder.avgWritingScore;
+        this.presentValues = builder.presentValues;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    public OptionalInt getNumTestTakers() {
+        return get(NUM_TEST_TAKERS, numTestTakers);
+    }
+
+    public OptionalInt getAvgReadingScore() {
+        return get(AVG_READING_SCORE, avgReadingScore);
+    }
+
+    public OptionalInt getAvgMathScore() {
+        return get(AVG_MATH_SCORE, avgMathScore);
+    }
+
+    public OptionalInt getAvgWritingScore() {
+        return get(AVG_WRITING_SCORE, avgWritingScore);
+    }
+
+    private OptionalInt get(int flag, int value) {
+        return (presentValues & flag) != 0 ? OptionalInt.of(value) : OptionalInt.empty();
+    }
+
+    /** Collects the values of a {@link SchoolSatData}. Values that are never set are missing. */
+    static class Builder {
+        private int numTestTakers;
+        private int avgReadingScore;
+        private int avgMathScore;
+        private int avgWritingScore;
+        private int presentValues;
+
+        private Builder() {}
+
+        Builder setNumTestTakers(int numTestTakers) {
+            this.numTestTakers = numTestTakers;
+            presentValues |= NUM_TEST_TAKERS;
+            return this;
+        }
+
+        Builder setAvgReadingScore(int avgReadingScore) {
+            this.avgReadingScore = avgReadingScore;
+            presentValues |= AVG_READING_SCORE;
+            return this;
+        }
+
+        Builder setAvgMathScore(int avgMathScore) {
+            this.avgMathScore = avgMathScore;
+            presentValues |= AVG_MATH_SCORE;
+            return this;
+        }
+
+        Builder setAvgWritingScore(int avgWritingScore) {
+            this.avgWritingScore = avgWritingScore;
+            presentValues |= AVG_WRITING_SCORE;
+            return this;
+        }
+
+        SchoolSatData build() {
+            return new SchoolSatData(this);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.nycschool;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Prefix index over the words in the school names. There is one entry for every position in a
+ * name where a word starts, and the entries are sorted by the lowercase name text from that
+ * position on. All the entries that start with a query word are then next to each other and can be
+ * found with two binary searches, without allocating anything per search. A query with several
+ * words matches the schools that match every one of them.
+ */
+class SchoolSearchIndex {
+    // Lowercase name for each school ordinal.
+    private final String[] lowercaseNames;
+    // Entry i is the text of lowercaseNames[entrySchools[i]] starting at entryOffsets[i].
+    private final int[] entrySchools;
+    private final int[] entryOffsets;
+
+    SchoolSearchIndex(School[] schools) {
+        lowercaseNames = new String[schools.length];
+        int entryCount = 0;
+        for (int i = 0; i < schools.length; i++) {
+            lowercaseNames[i] = schools[i].getName().toLowerCase(Locale.US);
+            entryCount += countWordStarts(lowercaseNames[i]);
+        }
+
+        Integer[] entries = new Integer[entryCount];
+        int[] unsortedSchools = new int[entryCount];
+        int[] unsortedOffsets = new int[entryCount];
+        int entry = 0;
+        for (int i = 0; i < lowercaseNames.length; i++) {
+            String name = lowercaseNames[i];
+            for (int offset = 0; offset < name.length(); offset++) {
+                if (isWordStart(name, offset)) {
+                    unsortedSchools[entry] = i;
+                    unsortedOffsets[entry] = offset;
+                    entries[entry] = entry;
+                    entry++;
+                }
+            }
+        }
+        Arrays.sort(entries, (first, second) -> compareEntries(
+                unsortedSchools[first], unsortedOffsets[first],
+                unsortedSchools[second], unsortedOffsets[second]));
+
+        entrySchools = new int[entryCount];
+        entryOffsets = new int[entryCount];
+        for (int i = 0; i < entryCount; i++) {
+            entrySchools[i] = unsortedSchools[entries[i]];
+            entryOffsets[i] = unsortedOffsets[entries[i]];
+        }
+    }
+
+    void search(CharSequence query, SchoolSearchResult result) {
+        result.clear();
+        boolean isFirstWord = true;
+        int wordStart = 0;
+        while (true) {
+            while (wordStart < query.length()
+                    && !Character.isLetterOrDigit(query.charAt(wordStart))) {
+                wordStart++;
+            }
+            if (wordStart == query.length()) {
+                break;
+            }
+            int wordEnd = wordStart + 1;
+            while (wordEnd < query.length() && Character.isLetterOrDigit(query.charAt(wordEnd))) {
+                wordEnd++;
+            }
+            markMatches(query, wordStart, wordEnd, result);
+            if (isFirstWord) {
+                result.collectMatched();
+                isFirstWord = false;
+            } else {
+                result.retainMatched();
+            }
+            wordStart = wordEnd;
+        }
+        if (isFirstWord) {
+            // A query without words matches every school.
+            result.addAll(lowercaseNames.length);
+        }
+    }
+
+    /** Marks the schools with a word in their name that starts with the query word. */
+    private void markMatches(
+            CharSequence query, int wordStart, int wordEnd, SchoolSearchResult result) {
+        // First entry that is not less than the word.
+        int low = 0;
+        int high = entrySchools.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareToWord(middle, query, wordStart, wordEnd) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        // Entries from there on match for as long as they start with the word.
+        for (int i = low; i < entrySchools.length; i++) {
+            if (compareToWord(i, query, wordStart, wordEnd) != 0) {
+                break;
+            }
+            result.markMatched(entrySchools[i]);
+        }
+    }
+
+    /**
+     * Compares the entry to the query word, treating the entry as equal if it starts with the word.
+     */
+    private int compareToWord(int entry, CharSequence query, int wordStart, int wordEnd) {
+        String name = lowercaseNames[entrySchools[entry]];
+        int offset = entryOffsets[entry];
+        for (int i = wordStart; i < wordEnd; i++, offset++) {
+            if (offset == name.length()) {
+                return -1;
+            }
+            int result = name.charAt(offset) - Character.toLowerCase(query.charAt(i));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private int compareEntries(
+            int firstSchool, int firstOffset, int secondSchool, int secondOffset) {
+        String first = lowercaseNames[firstSchool];
+        String second = lowercaseNames[secondSchool];
+        int length = Math.min(first.length() - firstOffset, second.length() - secondOffset);
+        for (int i = 0; i < length; i++) {
+            int result = first.charAt(firstOffset + i) - second.charAt(secondOffset + i);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return (first.length() - firstOffset) - (second.length() - secondOffset);
+    }
+
+    private static int countWordStarts(String name) {
+        int count = 0;
+        for (int offset = 0; offset < name.length(); offset++) {
+            if (isWordStart(name, offset)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isWordStart(String name, int offset) {
+        return Character.isLetterOrDigit(name.charAt(offset))
+                && (offset == 0 || !Character.isLetterOrDigit(name.charAt(offset - 1)));
+    }
+}
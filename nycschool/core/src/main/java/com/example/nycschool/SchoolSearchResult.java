@@ -0,0 +1,98 @@
+package com.example.nycschool;
+
+import java.util.Arrays;
+
+/**
+ * Holds the ordinals of the schools matched by {@link SchoolDirectory#search} or
+ * {@link SchoolDirectory#query}. The arrays are sized for the directory up front, so one result
+ * can be reused for every search without allocating.
+ */
+public class SchoolSearchResult {
+    private final int[] ordinals;
+    // One bit per school, used to drop duplicate matches and to put the matches in name order.
+    private final long[] matched;
+    private int size;
+
+    SchoolSearchResult(int schoolCount) {
+        ordinals = new int[schoolCount];
+        matched = new long[(schoolCount + 63) / 64];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Returns the ordinal in the {@link SchoolDirectory} of the i-th matching school. */
+    public int getOrdinal(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " is out of bounds for " + size);
+        }
+        return ordinals[i];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void markMatched(int ordinal) {
+        matched[ordinal >>> 6] |= 1L << ordinal;
+    }
+
+    /**
+     * Moves the marked ordinals into the result in ascending order and clears the marks, so the
+     * cost is proportional to the directory size divided by 64 plus the number of matches.
+     */
+    void collectMatched() {
+        for (int word = 0; word < matched.length; word++) {
+            long bits = matched[word];
+            while (bits != 0) {
+                ordinals[size++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+            matched[word] = 0;
+        }
+    }
+
+    /**
+     * Keeps only the ordinals in the result that are marked, in the same order, and clears the
+     * marks.
+     */
+    void retainMatched() {
+        int retained = 0;
+        for (int i = 0; i < size; i++) {
+            int ordinal = ordinals[i];
+            if ((matched[ordinal >>> 6] & 1L << ordinal) != 0) {
+                ordinals[retained++] = ordinal;
+            }
+        }
+        size = retained;
+        Arrays.fill(matched, 0);
+    }
+
+    /** Marks the ordinals in the result and empties it, so they can be added back in any order. */
+    void markAndClear() {
+        for (int i = 0; i < size; i++) {
+            markMatched(ordinals[i]);
+        }
+        size = 0;
+    }
+
+    /** Clears the mark of the ordinal, and returns whether it was marked. */
+    boolean unmark(int ordinal) {
+        long bit = 1L << ordinal;
+        boolean isMarked = (matched[ordinal >>> 6] & bit) != 0;
+        matched[ordinal >>> 6] &= ~bit;
+        return isMarked;
+    }
+
+    void add(int ordinal) {
+        ordinals[size++] = ordinal;
+    }
+
+    void addAll(int count) {
+        for (int i = 0; i < count; i++) {
+            ordinals[i] = i;
+        }
+        size = count;
+    }
+}
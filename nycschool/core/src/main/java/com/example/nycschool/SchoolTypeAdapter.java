@@ -0,0 +1,78 @@
+package com.example.nycschool;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads a record of the school directory data set straight into a {@link School}. Only the columns
+ * the app uses are kept; every other value is skipped without being decoded.
+ *
+ * <p>The overviews it reads are packed into slabs of its own, see {@link Overview.Allocator}. So
+ * it is not thread-safe, and each load uses a new adapter, which lets the slabs be freed along with
+ * the schools of that load.
+ */
+class SchoolTypeAdapter extends TypeAdapter<School> {
+    private final Overview.Allocator overviewAllocator = new Overview.Allocator();
+
+    @Override
+    public School read(JsonReader reader) throws IOException {
+        School.Builder school = School.builder();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "school_name":
+                    school.setName(nextStringOrNull(reader));
+                    break;
+                case "dbn":
+                    school.setDbn(nextStringOrNull(reader));
+                    break;
+                case "borough":
+                    String borough = nextStringOrNull(reader);
+                    if (borough != null) {
+                        school.setBorough(borough.trim());
+                    }
+                    break;
+                case SchoolDirectoryController.UPDATED_AT:
+                    school.setUpdatedAt(nextStringOrNull(reader));
+                    break;
+                case "overview_paragraph":
+                    String overview = nextStringOrNull(reader);
+                    if (overview != null && overview.length() != 0) {
+                        school.setOverview(overviewAllocator.of(overview));
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return school.build();
+    }
+
+    @Override
+    public void write(JsonWriter writer, School school) throws IOException {
+        writer.beginObject();
+        writer.name("school_name").value(school.getName());
+        writer.name("dbn").value(school.getDbn().orElse(null));
+        writer.name("borough").value(school.getBorough().orElse(null));
+        writer.name("overview_paragraph")
+                .value(school.getOverview().map(Overview::getText).orElse(null));
+        writer.name(SchoolDirectoryController.UPDATED_AT)
+                .value(school.getUpdatedAt().orElse(null));
+        writer.endObject();
+    }
+
+    /** Returns the string or number value, or null for any other kind of value. */
+    static String nextStringOrNull(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.nycschool;
+
+import androidx.annotation.Nullable;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+/**
+ * Builds the URL of a query against a Socrata data set using SoQL clauses, e.g.
+ *
+ * <pre>
+ * SoqlQuery.forDataSet(url).select("dbn", "school_name").order("dbn").limit(100).toUrl()
+ * </pre>
+ *
+ * Selecting only the columns that are used keeps the payload small, since the data sets have many
+ * more columns than the app reads.
+ */
+public class SoqlQuery {
+    private final String dataSetUrl;
+    @Nullable private String select;
+    @Nullable private String where;
+    @Nullable private String order;
+    private int limit = -1;
+    private int offset = -1;
+
+    private SoqlQuery(String dataSetUrl) {
+        this.dataSetUrl = dataSetUrl;
+    }
+
+    public static SoqlQuery forDataSet(String dataSetUrl) {
+        return new SoqlQuery(dataSetUrl);
+    }
+
+    /** Only returns the given columns. */
+    public SoqlQuery select(String... columns) {
+        this.select = String.join(",", columns);
+        return this;
+    }
+
+    /** Only returns the rows matching the condition, e.g. "dbn in('01M292','01M448')". */
+    public SoqlQuery where(String condition) {
+        this.where = condition;
+        return this;
+    }
+
+    /**
+     * Sorts the rows by the columns, the first one first. Paged queries should always set an order
+     * in which no two rows are equal, so that consecutive pages neither skip nor repeat rows.
+     */
+    public SoqlQuery order(String... columns) {
+        this.order = String.join(",", columns);
+        return this;
+    }
+
+    public SoqlQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public SoqlQuery offset(int offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    public String toUrl() {
+        StringBuilder url = new StringBuilder(dataSetUrl);
+        appendParameter(url, "$select", select);
+        appendParameter(url, "$where", where);
+        appendParameter(url, "$order", order);
+        appendParameter(url, "$limit", limit < 0 ? null : String.valueOf(limit));
+        appendParameter(url, "$offset", offset < 0 ? null : String.valueOf(offset));
+        return url.toString();
+    }
+
+    /** Returns the value as a quoted SoQL string literal. */
+    public static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    private static void appendParameter(StringBuilder url, String name, @Nullable String value) {
+        if (value == null) {
+            return;
+        }
+        url.append(url.indexOf("?") < 0 ? '?' : '&');
+        try {
+            url.append(name).append('=').append(URLEncoder.encode(value, "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is always supported.
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.nycschool;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * {@link HttpTransport} backed by {@link HttpURLConnection}. Responses are closed rather than
+ * disconnected, which lets HttpURLConnection keep the connection alive and reuse it for the next
+ * request to the same host. Responses are requested gzip compressed and decompressed while they
+ * are streamed.
+ *
+ * <p>The time to the first byte of the response and the bytes received are recorded to
+ * {@link Metrics}. HttpURLConnection does not tell whether it opened a new connection or reused
+ * one, so the time to resolve the host and connect is not recorded on its own but is part of the
+ * time to the first byte.
+ */
+public class UrlConnectionTransport implements HttpTransport {
+    // An unread body is that of a 304 or an error, which is short. A longer one is closed as is.
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+    private static final int DRAIN_BUFFER_SIZE = 8 * 1024;
+
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final Metrics metrics;
+
+    UrlConnectionTransport(int connectTimeoutMillis, int readTimeoutMillis, Metrics metrics) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Response get(String url, Map<String, String> headers) throws IOException {
+        HttpURLConnection urlConnection = (HttpURLConnection) new URL(url).openConnection();
+        urlConnection.setConnectTimeout(connectTimeoutMillis);
+        urlConnection.setReadTimeout(readTimeoutMillis);
+        // Setting this explicitly turns off any transparent decompression, so the body is
+        // decompressed below instead.
+        urlConnection.setRequestProperty("Accept-Encoding", "gzip");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            urlConnection.setRequestProperty(header.getKey(), header.getValue());
+        }
+        try {
+            // Connects if need be, sends the request and waits for the status line, which the
+            // response then reuses.
+            Metrics.Span firstByteSpan = metrics.startSpan(Metrics.TIME_TO_FIRST_BYTE);
+            try {
+                urlConnection.getResponseCode();
+            } finally {
+                firstByteSpan.end();
+            }
+        } catch (IOException e) {
+            urlConnection.disconnect();
+            throw e;
+        }
+        return new UrlConnectionResponse(urlConnection, metrics);
+    }
+
+    private static class UrlConnectionResponse implements Response {
+        private final HttpURLConnection urlConnection;
+        private final Metrics metrics;
+        @Nullable private MeteredInputStream rawBody;
+        @Nullable private InputStream body;
+
+        UrlConnectionResponse(HttpURLConnection urlConnection, Metrics metrics) {
+            this.urlConnection = urlConnection;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public int getStatusCode() throws IOException {
+            return urlConnection.getResponseCode();
+        }
+
+        @Nullable
+        @Override
+        public String getHeader(String name) {
+            return urlConnection.getHeaderField(name);
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                // Counted before decompressing, to record the bytes that were actually received.
+                rawBody = new MeteredInputStream(urlConnection.getInputStream());
+                body = "gzip".equalsIgnoreCase(urlConnection.getContentEncoding())
+                        ? new GZIPInputStream(rawBody)
+                        : rawBody;
+            }
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (body != null) {
+                metrics.recordValue(Metrics.DOWNLOAD_BYTES, rawBody.getByteCount());
+                body.close();
+                return;
+            }
+            // Reading the rest of the unread body before closing it hands the connection back for
+            // the next request right away. Closed early, HttpURLConnection may leave the rest to a
+            // background thread, and the next request would open another connection meanwhile.
+            try {
+                InputStream inputStream = urlConnection.getResponseCode() < 400
+                        ? urlConnection.getInputStream()
+                        : urlConnection.getErrorStream();
+                if (inputStream != null) {
+                    drain(inputStream);
+                    inputStream.close();
+                }
+            } catch (IOException e) {
+                urlConnection.disconnect();
+            }
+        }
+
+        /** Skips to the end of the body, unless it is too long to be worth it. */
+        private static void drain(InputStream inputStream) throws IOException {
+            byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+            long drainedBytes = 0;
+            int count;
+            while (drainedBytes < MAX_DRAIN_BYTES && (count = inputStream.read(buffer)) != -1) {
+                drainedBytes += count;
+            }
+        }
+    }
+}
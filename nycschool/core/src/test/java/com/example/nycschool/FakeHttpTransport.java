@@ -0,0 +1,192 @@
+package com.example.nycschool;
+
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link HttpTransport} that serves canned responses from memory. Responses are looked up by the
+ * longest URL prefix that was registered for the requested URL. If several responses are registered
+ * for a prefix they are served in order, and the last one is served from then on.
+ */
+final class FakeHttpTransport implements HttpTransport {
+    // How long a response waits for a barrier or latch before the request fails.
+    private static final long WAIT_TIMEOUT_SECONDS = 5;
+
+    private final LinkedHashMap<String, ArrayDeque<FakeResponse>> responses = new LinkedHashMap<>();
+    private final List<String> requestedUrls = new ArrayList<>();
+    private final List<Map<String, String>> requestHeaders = new ArrayList<>();
+
+    /** Serves the given responses to requests for URLs that start with the prefix. */
+    synchronized FakeHttpTransport respond(String urlPrefix, FakeResponse... responses) {
+        ArrayDeque<FakeResponse> queue = new ArrayDeque<>();
+        for (FakeResponse response : responses) {
+            queue.add(response);
+        }
+        this.responses.put(urlPrefix, queue);
+        return this;
+    }
+
+    /** Returns the URLs that were requested, in order. */
+    synchronized List<String> getRequestedUrls() {
+        return new ArrayList<>(requestedUrls);
+    }
+
+    /** Returns the headers of the first request for a URL that starts with the prefix. */
+    synchronized Map<String, String> getRequestHeaders(String urlPrefix) {
+        for (int i = 0; i < requestedUrls.size(); i++) {
+            if (requestedUrls.get(i).startsWith(urlPrefix)) {
+                return requestHeaders.get(i);
+            }
+        }
+        throw new AssertionError("No request for " + urlPrefix);
+    }
+
+    @Override
+    public Response get(String url, Map<String, String> headers) throws IOException {
+        FakeResponse response;
+        synchronized (this) {
+            requestedUrls.add(url);
+            requestHeaders.add(new HashMap<>(headers));
+            String longestPrefix = null;
+            for (String prefix : responses.keySet()) {
+                if (url.startsWith(prefix)
+                        && (longestPrefix == null || prefix.length() > longestPrefix.length())) {
+                    longestPrefix = prefix;
+                }
+            }
+            if (longestPrefix == null) {
+                throw new IOException("No response for " + url);
+            }
+            ArrayDeque<FakeResponse> queue = responses.get(longestPrefix);
+            response = queue.size() > 1 ? queue.poll() : queue.peek();
+        }
+        try {
+            if (response.barrier != null) {
+                response.barrier.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            if (response.awaitedLatch != null
+                    && !response.awaitedLatch.await(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IOException("Timed out waiting to reply to " + url);
+            }
+            if (response.delayMillis > 0) {
+                Thread.sleep(response.delayMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (BrokenBarrierException | TimeoutException e) {
+            throw new IOException("No concurrent request arrived for " + url, e);
+        }
+        if (response.error != null) {
+            throw response.error;
+        }
+        return response.open();
+    }
+
+    /** A response, or a failure to connect. */
+    static final class FakeResponse {
+        private final int statusCode;
+        private final byte[] body;
+        @Nullable private final IOException error;
+        private final HashMap<String, String> headers = new HashMap<>();
+        private long delayMillis;
+        @Nullable private CyclicBarrier barrier;
+        @Nullable private CountDownLatch awaitedLatch;
+        @Nullable private CountDownLatch closedLatch;
+
+        private FakeResponse(int statusCode, byte[] body, @Nullable IOException error) {
+            this.statusCode = statusCode;
+            this.body = body;
+            this.error = error;
+        }
+
+        static FakeResponse ok(byte[] body) {
+            return new FakeResponse(HttpURLConnection.HTTP_OK, body, null);
+        }
+
+        static FakeResponse status(int statusCode) {
+            return new FakeResponse(statusCode, new byte[0], null);
+        }
+
+        static FakeResponse failure(IOException error) {
+            return new FakeResponse(0, new byte[0], error);
+        }
+
+        /** Waits for the given time before replying, or before failing. */
+        FakeResponse withDelay(long delayMillis) {
+            this.delayMillis = delayMillis;
+            return this;
+        }
+
+        /**
+         * Waits at the barrier before replying, so that the response is only served while as many
+         * requests as the barrier has parties are in flight at the same time. Fails the request if
+         * they are not within a few seconds, e.g. because the requests are made one after the
+         * other.
+         */
+        FakeResponse withBarrier(CyclicBarrier barrier) {
+            this.barrier = barrier;
+            return this;
+        }
+
+        /** Waits for the latch to be counted down before replying. */
+        FakeResponse waitingFor(CountDownLatch latch) {
+            this.awaitedLatch = latch;
+            return this;
+        }
+
+        /** Counts the latch down once the response has been closed by the caller. */
+        FakeResponse countingDownOnClose(CountDownLatch latch) {
+            this.closedLatch = latch;
+            return this;
+        }
+
+        FakeResponse withHeader(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+
+        private Response open() {
+            InputStream bodyStream = new ByteArrayInputStream(body);
+            return new Response() {
+                @Override
+                public int getStatusCode() {
+                    return statusCode;
+                }
+
+                @Nullable
+                @Override
+                public String getHeader(String name) {
+                    return headers.get(name);
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return bodyStream;
+                }
+
+                @Override
+                public void close() {
+                    if (closedLatch != null) {
+                        closedLatch.countDown();
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.nycschool;
+
+/** Measures the heap for tests of how much memory the data structures take. */
+final class HeapUsage {
+    private HeapUsage() {}
+
+    /** Returns the bytes in use on the heap once the garbage has been collected. */
+    static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long usedHeap = Long.MAX_VALUE;
+        // A single System.gc() is only a hint, so collect until the heap stops shrinking.
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            long newUsedHeap = runtime.totalMemory() - runtime.freeMemory();
+            if (newUsedHeap >= usedHeap) {
+                break;
+            }
+            usedHeap = newUsedHeap;
+        }
+        return usedHeap;
+    }
+}
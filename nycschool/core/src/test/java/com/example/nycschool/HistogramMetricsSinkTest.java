@@ -0,0 +1,68 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class HistogramMetricsSinkTest {
+    private final HistogramMetricsSink sink = new HistogramMetricsSink();
+
+    @Test
+    public void onSpanEnded_recordsDuration() {
+        sink.onSpanStarted(Metrics.READ_TIME, 1);
+        sink.onSpanEnded(Metrics.READ_TIME, 1, 300);
+        sink.onSpanStarted(Metrics.READ_TIME, 2);
+        sink.onSpanEnded(Metrics.READ_TIME, 2, 100);
+
+        Histogram histogram = sink.getHistogram(Metrics.READ_TIME).get();
+        assertEquals(2, histogram.getCount());
+        assertEquals(100, histogram.getMin());
+        assertEquals(300, histogram.getMax());
+    }
+
+    @Test
+    public void onSpanCancelled_recordsNothing() {
+        sink.onSpanStarted(Metrics.READ_TIME, 1);
+        sink.onSpanCancelled(Metrics.READ_TIME, 1);
+
+        assertFalse(sink.getHistogram(Metrics.READ_TIME).isPresent());
+    }
+
+    @Test
+    public void onValue_recordsValuePerName() {
+        sink.onValue(Metrics.RECORDS_PARSED, 10);
+        sink.onValue(Metrics.RECORDS_SKIPPED, 1);
+        sink.onValue(Metrics.RECORDS_PARSED, 20);
+
+        assertEquals(2, sink.getHistogram(Metrics.RECORDS_PARSED).get().getCount());
+        assertEquals(1, sink.getHistogram(Metrics.RECORDS_SKIPPED).get().getCount());
+    }
+
+    @Test
+    public void onLoadError_countsErrorsPerKind() {
+        sink.onLoadError(LoadError.from(new IOException()));
+        sink.onLoadError(LoadError.from(new IOException()));
+        sink.onLoadError(LoadError.from(new HttpStatusException(500, "http://example.com")));
+
+        assertEquals(2, sink.getHistogram("load.errors.NETWORK").get().getCount());
+        assertEquals(1, sink.getHistogram("load.errors.HTTP_STATUS").get().getCount());
+        assertFalse(sink.getHistogram("load.errors.PARSE").isPresent());
+    }
+
+    @Test
+    public void getHistograms_sortsByName() {
+        sink.onValue(Metrics.SAT_JOIN_MISSES, 1);
+        sink.onValue(Metrics.DOWNLOAD_BYTES, 1);
+        sink.onValue(Metrics.RECORDS_PARSED, 1);
+
+        assertEquals(
+                Arrays.asList(
+                        Metrics.DOWNLOAD_BYTES, Metrics.RECORDS_PARSED, Metrics.SAT_JOIN_MISSES),
+                new ArrayList<>(sink.getHistograms().keySet()));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class HistogramTest {
+    private final Histogram histogram = new Histogram();
+
+    @Test
+    public void getPercentile_withoutValues() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void getPercentile_returnsTopOfBucket() {
+        // 1 is alone in its bucket, 2 and 3 share one, and 4 to 7 share the next.
+        for (long value = 1; value <= 7; value++) {
+            histogram.record(value);
+        }
+        histogram.record(100);
+
+        assertEquals(1, histogram.getPercentile(0));
+        assertEquals(1, histogram.getPercentile(12.5));
+        assertEquals(3, histogram.getPercentile(25));
+        assertEquals(7, histogram.getPercentile(50));
+        assertEquals(7, histogram.getPercentile(87.5));
+        // The top of the bucket of 100 is 127, but no value was larger than 100.
+        assertEquals(100, histogram.getPercentile(99));
+        assertEquals(100, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void getPercentile_clampsPercentile() {
+        histogram.record(10);
+        histogram.record(1000);
+
+        assertEquals(15, histogram.getPercentile(-1));
+        assertEquals(1000, histogram.getPercentile(200));
+    }
+
+    @Test
+    public void getPercentile_zeroHasOwnBucket() {
+        histogram.record(0);
+        histogram.record(1);
+
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(1, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void getPercentile_largestValues() {
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(1L << 62);
+
+        assertEquals(1L << 62, histogram.getMin());
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void record_treatsNegativeAsZero() {
+        histogram.record(-5);
+        histogram.record(4);
+
+        assertEquals(0, histogram.getMin());
+        assertEquals(4, histogram.getMax());
+        assertEquals(2, histogram.getMean(), 0);
+        assertEquals(0, histogram.getPercentile(50));
+    }
+}
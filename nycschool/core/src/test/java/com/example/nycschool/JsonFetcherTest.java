@@ -0,0 +1,162 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.nycschool.FakeHttpTransport.FakeResponse;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JsonFetcherTest {
+    private static final String URL = "https://example.com/resource.json";
+    // About 15 MB of JSON, far more than the records handled at any one time.
+    private static final int LARGE_SCALE = 40;
+    private static final int HEAP_SAMPLES = 10;
+    private static final byte[] TWO_SATS = bytes(
+            "[{\"dbn\":\"01M292\",\"school_name\":\"HENRY STREET\"},"
+                    + "{\"dbn\":\"01M448\",\"school_name\":\"UNIVERSITY NEIGHBORHOOD\"}]");
+
+    private final FakeHttpTransport transport = new FakeHttpTransport();
+    private final JsonFetcher fetcher =
+            new JsonFetcher(transport, RetryPolicy.NO_RETRIES, Metrics.NO_OP);
+
+    @Test
+    public void streamRecords_retriesServerErrorsUntilSuccess() {
+        JsonFetcher fetcher = new JsonFetcher(transport, new RetryPolicy(3, 1, 1), Metrics.NO_OP);
+        transport.respond(URL,
+                FakeResponse.status(503),
+                FakeResponse.failure(new IOException("Connection reset")),
+                FakeResponse.ok(TWO_SATS));
+        List<School> records = new ArrayList<>();
+
+        JsonFetcher.FetchResult result = fetcher.streamRecords(
+                URL, HttpValidators.NONE, new SatRecordTypeAdapter(), records::add)
+                .toBlocking()
+                .value();
+
+        assertEquals(2, result.getRecordCount());
+        assertEquals(2, records.size());
+        assertEquals(3, transport.getRequestedUrls().size());
+    }
+
+    @Test
+    public void streamRecords_givesUpAfterMaxAttempts() {
+        JsonFetcher fetcher = new JsonFetcher(transport, new RetryPolicy(3, 1, 1), Metrics.NO_OP);
+        transport.respond(URL, FakeResponse.status(429));
+
+        assertStatusException(429, fetcher);
+        assertEquals(3, transport.getRequestedUrls().size());
+    }
+
+    @Test
+    public void streamRecords_doesNotRetryClientErrors() {
+        JsonFetcher fetcher = new JsonFetcher(transport, new RetryPolicy(3, 1, 1), Metrics.NO_OP);
+        transport.respond(URL, FakeResponse.status(HttpURLConnection.HTTP_NOT_FOUND));
+
+        assertStatusException(HttpURLConnection.HTTP_NOT_FOUND, fetcher);
+        assertEquals(1, transport.getRequestedUrls().size());
+    }
+
+    @Test
+    public void streamRecords_doesNotRetryOnceRecordsWereHandled() {
+        JsonFetcher fetcher = new JsonFetcher(transport, new RetryPolicy(3, 1, 1), Metrics.NO_OP);
+        // Cut off in the middle of the second record.
+        transport.respond(URL, FakeResponse.ok(
+                bytes("[{\"dbn\":\"01M292\"},{\"dbn\":\"01M4")));
+        List<School> records = new ArrayList<>();
+
+        try {
+            fetcher.streamRecords(
+                    URL, HttpValidators.NONE, new SatRecordTypeAdapter(), records::add)
+                    .toBlocking()
+                    .value();
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(1, records.size());
+        assertEquals(1, transport.getRequestedUrls().size());
+    }
+
+    @Test
+    public void streamRecords_notModified() {
+        HttpValidators validators = new HttpValidators("\"v1\"", null);
+        transport.respond(URL, FakeResponse.status(HttpURLConnection.HTTP_NOT_MODIFIED));
+
+        JsonFetcher.FetchResult result = fetcher.streamRecords(
+                URL, validators, new SatRecordTypeAdapter(), record -> fail())
+                .toBlocking()
+                .value();
+
+        assertTrue(result.isNotModified());
+        assertSame(validators, result.getValidators());
+    }
+
+    @Test
+    public void streamRecords_returnsNewValidators() {
+        transport.respond(URL, FakeResponse.ok(TWO_SATS)
+                .withHeader("ETag", "\"v2\"")
+                .withHeader("Last-Modified", "Tue, 06 Oct 2026 10:00:00 GMT"));
+
+        JsonFetcher.FetchResult result = fetcher.streamRecords(
+                URL, HttpValidators.NONE, new SatRecordTypeAdapter(), record -> {})
+                .toBlocking()
+                .value();
+
+        assertFalse(result.isNotModified());
+        assertEquals("\"v2\"", result.getValidators().getEtag());
+        assertEquals("Tue, 06 Oct 2026 10:00:00 GMT", result.getValidators().getLastModified());
+    }
+
+    @Test
+    public void streamRecords_peakHeapDoesNotGrowWithPayload() {
+        byte[] json = SocrataFixtures.schoolDirectoryJson(LARGE_SCALE);
+        transport.respond(URL, FakeResponse.ok(json));
+        int recordCount = SocrataFixtures.DIRECTORY_RECORDS * LARGE_SCALE;
+        long baseline = HeapUsage.usedAfterGc();
+        long[] peak = {0};
+        int[] handled = {0};
+
+        JsonFetcher.FetchResult result = fetcher.streamRecords(
+                URL, HttpValidators.NONE, new SchoolTypeAdapter(), school -> {
+                    handled[0]++;
+                    if (handled[0] % (recordCount / HEAP_SAMPLES) == 0) {
+                        peak[0] = Math.max(peak[0], HeapUsage.usedAfterGc());
+                    }
+                })
+                .toBlocking()
+                .value();
+
+        assertEquals(recordCount, result.getRecordCount());
+        // Buffering the body, even as compact Latin-1 Strings, would retain at least its size.
+        long growth = peak[0] - baseline;
+        assertTrue("Heap grew by " + growth + " bytes for " + json.length + " bytes of JSON",
+                growth < json.length / 10);
+    }
+
+    private void assertStatusException(int statusCode, JsonFetcher fetcher) {
+        try {
+            fetcher.streamRecords(
+                    URL, HttpValidators.NONE, new SatRecordTypeAdapter(), record -> fail())
+                    .toBlocking()
+                    .value();
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof HttpStatusException);
+            assertEquals(statusCode, ((HttpStatusException) e.getCause()).getStatusCode());
+        }
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
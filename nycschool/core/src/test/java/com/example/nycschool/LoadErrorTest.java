@@ -0,0 +1,60 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.OptionalInt;
+
+public class LoadErrorTest {
+    @Test
+    public void from_httpStatus() {
+        HttpStatusException error = new HttpStatusException(503, "http://example.com");
+
+        LoadError loadError = LoadError.from(error);
+
+        assertEquals(LoadError.Kind.HTTP_STATUS, loadError.getKind());
+        assertEquals(OptionalInt.of(503), loadError.getStatusCode());
+        assertSame(error, loadError.getCause());
+    }
+
+    @Test
+    public void from_parse() {
+        // MalformedJsonException is an IOException, but not a network failure.
+        assertKind(LoadError.Kind.PARSE, new MalformedJsonException("Unterminated array"));
+        assertKind(LoadError.Kind.PARSE, new JsonParseException("Unexpected record"));
+        assertKind(LoadError.Kind.PARSE, new JsonSyntaxException("Expected a string"));
+        assertKind(LoadError.Kind.PARSE, new IllegalStateException("Expected BEGIN_ARRAY"));
+        assertKind(LoadError.Kind.PARSE, new NumberFormatException("For input string: \"s\""));
+    }
+
+    @Test
+    public void from_network() {
+        assertKind(LoadError.Kind.NETWORK, new UnknownHostException("data.cityofnewyork.us"));
+        assertKind(LoadError.Kind.NETWORK, new SocketTimeoutException());
+        assertKind(LoadError.Kind.NETWORK, new IOException());
+    }
+
+    @Test
+    public void from_unknown() {
+        assertKind(LoadError.Kind.UNKNOWN, new NullPointerException());
+        assertKind(LoadError.Kind.UNKNOWN, new IllegalArgumentException());
+    }
+
+    private static void assertKind(LoadError.Kind kind, Throwable error) {
+        LoadError loadError = LoadError.from(error);
+
+        assertEquals(error.toString(), kind, loadError.getKind());
+        assertFalse(loadError.getStatusCode().isPresent());
+        assertSame(error, loadError.getCause());
+    }
+}
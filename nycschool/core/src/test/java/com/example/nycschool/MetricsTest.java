@@ -0,0 +1,86 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MetricsTest {
+    private final RecordingSink sink = new RecordingSink();
+    private final Metrics metrics = new Metrics(sink);
+
+    @Test
+    public void startSpan_endsWithSameIdAndDuration() throws InterruptedException {
+        Metrics.Span span = metrics.startSpan(Metrics.READ_TIME);
+        Thread.sleep(5);
+        span.end();
+
+        assertEquals(2, sink.events.size());
+        assertEquals("started json.read_time 1", sink.events.get(0));
+        assertEquals("ended json.read_time 1", sink.events.get(1));
+        assertTrue(sink.lastDurationNanos >= 5_000_000);
+    }
+
+    @Test
+    public void startSpan_givesOverlappingSpansDistinctIds() {
+        Metrics.Span first = metrics.startSpan(Metrics.READ_TIME);
+        Metrics.Span second = metrics.startSpan(Metrics.READ_TIME);
+        second.cancel();
+        first.end();
+
+        assertEquals(
+                "[started json.read_time 1, started json.read_time 2,"
+                        + " cancelled json.read_time 2, ended json.read_time 1]",
+                sink.events.toString());
+    }
+
+    @Test
+    public void recordValue_passesValueOn() {
+        metrics.recordValue(Metrics.RECORDS_PARSED, 42);
+
+        assertEquals("[value json.records_parsed 42]", sink.events.toString());
+    }
+
+    @Test
+    public void recordLoadError_passesErrorOn() {
+        metrics.recordLoadError(LoadError.from(new IOException()));
+
+        assertEquals("[error NETWORK]", sink.events.toString());
+    }
+
+    /** Records what it was told, in order. */
+    private static class RecordingSink implements MetricsSink {
+        final List<String> events = new ArrayList<>();
+        long lastDurationNanos;
+
+        @Override
+        public void onSpanStarted(String name, int spanId) {
+            events.add("started " + name + " " + spanId);
+        }
+
+        @Override
+        public void onSpanEnded(String name, int spanId, long durationNanos) {
+            events.add("ended " + name + " " + spanId);
+            lastDurationNanos = durationNanos;
+        }
+
+        @Override
+        public void onSpanCancelled(String name, int spanId) {
+            events.add("cancelled " + name + " " + spanId);
+        }
+
+        @Override
+        public void onValue(String name, long value) {
+            events.add("value " + name + " " + value);
+        }
+
+        @Override
+        public void onLoadError(LoadError error) {
+            events.add("error " + error.getKind());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class OverviewTest {
+    private static final int OVERVIEW_COUNT = 20000;
+    // Eight of these are about as long as a real overview paragraph. The curly quote is typical of
+    // the real ones, and makes a String store the text as UTF-16.
+    private static final String SENTENCE = "Our school\u2019s students take part in a rigorous "
+            + "academic program with internships, college visits and advisory groups. ";
+    // Without it, a String with compact strings stores the text as one byte per character, just
+    // like the UTF-8 bytes of an overview.
+    private static final String ASCII_SENTENCE = SENTENCE.replace('\u2019', '\'');
+
+    private final Overview.Allocator allocator = new Overview.Allocator();
+
+    @Test
+    public void of_keepsShortTextAsPreview() {
+        Overview overview = allocator.of("A small school.");
+
+        assertEquals("A small school.", overview.getPreview());
+        assertEquals("A small school.", overview.getText());
+    }
+
+    @Test
+    public void of_cutsPreviewAtWord() {
+        String text = overviewText(0);
+        Overview overview = allocator.of(text);
+
+        String preview = overview.getPreview();
+        assertTrue(preview.endsWith(Overview.ELLIPSIS));
+        assertTrue(preview.getBytes(StandardCharsets.UTF_8).length
+                <= Overview.PREVIEW_BYTES + Overview.ELLIPSIS.length());
+        String previewText = preview.substring(0, preview.length() - Overview.ELLIPSIS.length());
+        assertTrue(text.startsWith(previewText));
+        assertTrue(text.charAt(previewText.length()) == ' ');
+        assertEquals(text, overview.getText());
+    }
+
+    @Test
+    public void writeTo_roundTripsThroughRead() throws IOException {
+        Overview overview = allocator.of(overviewText(1));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        overview.writeTo(new DataOutputStream(bytes));
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Overview readOverview = allocator.read(in, in.readInt());
+
+        assertEquals(overview, readOverview);
+        assertEquals(overview.getText(), readOverview.getText());
+        assertEquals(overview.getPreview(), readOverview.getPreview());
+    }
+
+    @Test
+    public void retainsLessHeapThanStrings_multibyteText() {
+        long[] heapBytes = measureHeap(SENTENCE);
+
+        // A String holds the whole text as UTF-16, an overview as UTF-8 and a short preview.
+        assertTrue("Overviews retained " + heapBytes[1] + " bytes, Strings " + heapBytes[0],
+                heapBytes[1] < heapBytes[0] * 4 / 5);
+    }
+
+    @Test
+    public void retainsOnlyPreviewMoreHeapThanStrings_asciiText() {
+        long[] heapBytes = measureHeap(ASCII_SENTENCE);
+
+        // With compact strings, both hold the whole text as one byte per character, so all an
+        // overview adds is its preview and itself. Without them a String holds UTF-16, so an
+        // overview takes about half as much.
+        assertTrue("Overviews retained " + heapBytes[1] + " bytes, Strings " + heapBytes[0],
+                heapBytes[1] < heapBytes[0] + OVERVIEW_COUNT * (Overview.PREVIEW_BYTES + 100L));
+    }
+
+    /** Returns the heap that texts made of the sentence retain as Strings and as Overviews. */
+    private long[] measureHeap(String sentence) {
+        long baseline = HeapUsage.usedAfterGc();
+        String[] strings = new String[OVERVIEW_COUNT];
+        for (int i = 0; i < OVERVIEW_COUNT; i++) {
+            strings[i] = overviewText(i, sentence);
+        }
+        long stringBytes = HeapUsage.usedAfterGc() - baseline;
+
+        baseline = HeapUsage.usedAfterGc();
+        Overview[] overviews = new Overview[OVERVIEW_COUNT];
+        for (int i = 0; i < OVERVIEW_COUNT; i++) {
+            overviews[i] = allocator.of(strings[i]);
+        }
+        long overviewBytes = HeapUsage.usedAfterGc() - baseline;
+
+        // Both must still be reachable when the heap is measured.
+        assertEquals(OVERVIEW_COUNT, strings.length);
+        assertEquals(OVERVIEW_COUNT, overviews.length);
+        return new long[] {stringBytes, overviewBytes};
+    }
+
+    private static String overviewText(int i) {
+        return overviewText(i, SENTENCE);
+    }
+
+    private static String overviewText(int i, String sentence) {
+        StringBuilder text = new StringBuilder().append(i).append(". ");
+        for (int count = 0; count < 8; count++) {
+            text.append(sentence);
+        }
+        return text.toString();
+    }
+}
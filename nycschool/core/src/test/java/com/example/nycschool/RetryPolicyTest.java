@@ -0,0 +1,48 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RetryPolicyTest {
+    private final RetryPolicy retryPolicy = new RetryPolicy(4, 100, 1000);
+
+    @Test
+    public void shouldRetry_untilMaxAttempts() {
+        assertTrue(retryPolicy.shouldRetry(1));
+        assertTrue(retryPolicy.shouldRetry(3));
+        assertFalse(retryPolicy.shouldRetry(4));
+    }
+
+    @Test
+    public void isRetryable_serverErrorsAndTooManyRequests() {
+        assertTrue(retryPolicy.isRetryable(500));
+        assertTrue(retryPolicy.isRetryable(503));
+        assertTrue(retryPolicy.isRetryable(429));
+        assertFalse(retryPolicy.isRetryable(200));
+        assertFalse(retryPolicy.isRetryable(304));
+        assertFalse(retryPolicy.isRetryable(404));
+    }
+
+    @Test
+    public void getDelayMillis_jittersUpToExponentialBackoff() {
+        for (int attempts = 1; attempts <= 5; attempts++) {
+            long maxDelay = Math.min(1000, 100L << (attempts - 1));
+            long longestDelay = 0;
+            for (int i = 0; i < 1000; i++) {
+                long delay = retryPolicy.getDelayMillis(attempts);
+                assertTrue(delay >= 0 && delay <= maxDelay);
+                longestDelay = Math.max(longestDelay, delay);
+            }
+            // Full jitter spreads the delays over the whole range.
+            assertTrue(longestDelay > maxDelay / 2);
+        }
+    }
+
+    @Test
+    public void getDelayMillis_doesNotOverflowForManyAttempts() {
+        long delay = retryPolicy.getDelayMillis(100);
+        assertTrue(delay >= 0 && delay <= 1000);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Optional;
+
+public class SatDataJoinTest {
+    private static final School HENRY_STREET = School.builder()
+            .setName("Henry Street School for International Studies")
+            .setDbn("01M292")
+            .build();
+    private static final School BRONX_ARTS = School.builder()
+            .setName("Bronx Arts")
+            .setDbn("09X100")
+            .build();
+
+    private final HashMap<String, School> directorySchools = new HashMap<>();
+    private final HashMap<String, School> satRecords = new HashMap<>();
+
+    public SatDataJoinTest() {
+        directorySchools.put(HENRY_STREET.getName(), HENRY_STREET);
+        directorySchools.put(BRONX_ARTS.getName(), BRONX_ARTS);
+    }
+
+    @Test
+    public void join_matchesByDbn() {
+        // Spelled differently, but the DBN matches.
+        satRecords.put("09X100", satRecord("09X100", "BRONX ARTS HS", 500));
+
+        SatDataJoin join = SatDataJoin.join(directorySchools, satRecords);
+
+        assertEquals(500, mathScore(join, "Bronx Arts"));
+        assertEquals(1, join.getMatchCount());
+        assertEquals(0, join.getNameMatchCount());
+        assertEquals(Optional.of("Bronx Arts"), join.getJoinedSchoolName("09X100"));
+    }
+
+    @Test
+    public void join_fallsBackToNormalizedName() {
+        satRecords.put("99X999",
+                satRecord("99X999", "HENRY STREET SCHOOL FOR INTERNATIONAL STUDIES", 400));
+
+        SatDataJoin join = SatDataJoin.join(directorySchools, satRecords);
+
+        assertEquals(400, mathScore(join, HENRY_STREET.getName()));
+        assertEquals(1, join.getMatchCount());
+        assertEquals(1, join.getNameMatchCount());
+        assertEquals(
+                Optional.of(HENRY_STREET.getName()), join.getJoinedSchoolName("99X999"));
+    }
+
+    @Test
+    public void join_dropsRecordsThatMatchNoSchool() {
+        satRecords.put("99X999", satRecord("99X999", "QUEENS SCHOOL", 400));
+
+        SatDataJoin join = SatDataJoin.join(directorySchools, satRecords);
+
+        assertEquals(1, join.getMissCount());
+        assertEquals(0, join.getMatchCount());
+        assertEquals(2, join.getSchoolDirectory().size());
+        assertFalse(join.getJoinedSchoolName("99X999").isPresent());
+        for (School school : join.getSchoolDirectory().values()) {
+            assertFalse(school.getSatData().isPresent());
+        }
+    }
+
+    @Test
+    public void join_countsDuplicates() {
+        // Both match Bronx Arts, the first by DBN and the second by name.
+        satRecords.put("09X100", satRecord("09X100", "BRONX ARTS", 500));
+        satRecords.put("99X999", satRecord("99X999", "Bronx Arts", 600));
+
+        SatDataJoin join = SatDataJoin.join(directorySchools, satRecords);
+
+        assertEquals(1, join.getMatchCount());
+        assertEquals(1, join.getDuplicateCount());
+        // Only the record that was joined is traced to the school, whichever came first.
+        assertNotEquals(
+                join.getJoinedSchoolName("09X100").isPresent(),
+                join.getJoinedSchoolName("99X999").isPresent());
+    }
+
+    @Test
+    public void join_countsEveryOutcome() {
+        satRecords.put("09X100", satRecord("09X100", "BRONX ARTS", 500));
+        // Abbreviated, which normalizing the name does not undo.
+        satRecords.put("88X888", satRecord("88X888", "Henry Street School - Intl. Studies", 400));
+        satRecords.put("77X777", satRecord("77X777", "QUEENS SCHOOL", 300));
+        // Records without SAT data are not joined or counted at all.
+        satRecords.put("66X666", School.builder().setName("Bronx Arts").setDbn("66X666").build());
+
+        SatDataJoin join = SatDataJoin.join(directorySchools, satRecords);
+
+        assertEquals(1, join.getMatchCount());
+        assertEquals(0, join.getNameMatchCount());
+        assertEquals(2, join.getMissCount());
+        assertEquals(0, join.getDuplicateCount());
+        assertFalse(join.getJoinedSchoolName("66X666").isPresent());
+    }
+
+    @Test
+    public void join_leavesInputsUntouched() {
+        satRecords.put("09X100", satRecord("09X100", "BRONX ARTS", 500));
+
+        SatDataJoin join = SatDataJoin.join(directorySchools, satRecords);
+
+        assertSame(BRONX_ARTS, directorySchools.get("Bronx Arts"));
+        assertFalse(BRONX_ARTS.getSatData().isPresent());
+        // Schools without SAT data are shared rather than copied.
+        assertSame(HENRY_STREET, join.getSchoolDirectory().get(HENRY_STREET.getName()));
+    }
+
+    private static int mathScore(SatDataJoin join, String name) {
+        return join.getSchoolDirectory().get(name).getSatData().get().getAvgMathScore().getAsInt();
+    }
+
+    private static School satRecord(String dbn, String name, int avgMathScore) {
+        SchoolSatData satData = SchoolSatData.builder().setAvgMathScore(avgMathScore).build();
+        return School.builder().setName(name).setDbn(dbn).build().withSatData(satData);
+    }
+}
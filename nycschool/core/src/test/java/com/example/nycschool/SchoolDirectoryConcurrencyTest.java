@@ -0,0 +1,257 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rx.Observable;
+
+/**
+ * Runs many refreshes of the controller at the same time while readers keep reading its
+ * directory, the way periodic refreshes publish while the UI reads. Every refresh changes another
+ * school, so the test can check that no refresh's change is lost, and that every directory a
+ * reader sees is consistent in itself and never older than one it saw before.
+ */
+public class SchoolDirectoryConcurrencyTest {
+    private static final String SYNCED_UP_TO = "2026-01-01T00:00:00.000Z";
+    private static final String LATER = "2026-02-01T00:00:00.000Z";
+    private static final int READER_COUNT = 4;
+    private static final int REFRESH_COUNT = 200;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    @Rule public final TemporaryFolder storageDirectory = new TemporaryFolder();
+
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(8);
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void refresh_concurrentRefreshesLoseNoUpdate() throws Exception {
+        HashMap<String, School> directorySchools = new HashMap<>();
+        for (int i = 0; i < REFRESH_COUNT; i++) {
+            School school = School.builder()
+                    .setName(name(i))
+                    .setDbn(dbn(i))
+                    .setBorough("MANHATTAN")
+                    .setUpdatedAt(SYNCED_UP_TO)
+                    .build();
+            directorySchools.put(school.getName(), school);
+        }
+        new SchoolDirectoryStore(storageDirectory.getRoot()).write(new SchoolDirectorySnapshot(
+                directorySchools,
+                new HashMap<>(),
+                HttpValidators.NONE,
+                HttpValidators.NONE,
+                SYNCED_UP_TO,
+                SYNCED_UP_TO));
+        SchoolDirectoryController controller = new SchoolDirectoryController(
+                new JsonFetcher(new ChangingTransport(), RetryPolicy.NO_RETRIES, Metrics.NO_OP),
+                storageDirectory.getRoot(),
+                BundledSnapshot.NONE,
+                SchoolDirectoryController.LoadingMode.EAGER_SAT,
+                Metrics.NO_OP);
+        // The stored snapshot is version 1, and its revalidation finds nothing changed.
+        controller.initialize(executor).take(1).toBlocking().single();
+
+        AtomicBoolean isRefreshing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch readersDone = new CountDownLatch(READER_COUNT);
+        int[] readCounts = new int[READER_COUNT];
+        for (int reader = 0; reader < READER_COUNT; reader++) {
+            int readerIndex = reader;
+            new Thread(() -> {
+                try {
+                    long lastVersion = 0;
+                    do {
+                        SchoolDirectory schoolDirectory = controller.getSchoolDirectory().get();
+                        assertTrue(schoolDirectory.getVersion() >= lastVersion);
+                        lastVersion = schoolDirectory.getVersion();
+                        assertConsistent(schoolDirectory);
+                        readCounts[readerIndex]++;
+                    } while (isRefreshing.get());
+                } catch (Throwable e) {
+                    failures.add(e);
+                } finally {
+                    readersDone.countDown();
+                }
+            }).start();
+        }
+
+        List<LoadResult> results;
+        try {
+            ArrayList<Observable<LoadResult>> refreshes = new ArrayList<>();
+            for (int i = 0; i < REFRESH_COUNT; i++) {
+                refreshes.add(controller.refresh(executor));
+            }
+            // Subscribes to all refreshes at once, so they run in parallel on the executor.
+            results = Observable.merge(refreshes)
+                    .toList()
+                    .timeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .toBlocking()
+                    .single();
+        } finally {
+            isRefreshing.set(false);
+        }
+        readersDone.await();
+
+        if (!failures.isEmpty()) {
+            throw new AssertionError(failures.peek());
+        }
+        for (int readCount : readCounts) {
+            assertTrue(readCount > 0);
+        }
+        // Every refresh published its own version, one after the other.
+        assertEquals(REFRESH_COUNT, results.size());
+        boolean[] isPublished = new boolean[REFRESH_COUNT + 2];
+        for (LoadResult result : results) {
+            int version = (int) result.getUpdate().get().getSchoolDirectory().getVersion();
+            assertFalse(isPublished[version]);
+            isPublished[version] = true;
+        }
+        // And none of their changes were lost.
+        SchoolDirectory schoolDirectory = controller.getSchoolDirectory().get();
+        assertEquals(1 + REFRESH_COUNT, schoolDirectory.getVersion());
+        for (int i = 0; i < REFRESH_COUNT; i++) {
+            School school = schoolDirectory.getSchoolData(name(i)).get();
+            assertEquals("BRONX", school.getBorough().get());
+            assertTrue(school.getSatData().isPresent());
+        }
+        SchoolDirectorySnapshot stored =
+                new SchoolDirectoryStore(storageDirectory.getRoot()).read().get();
+        assertEquals(REFRESH_COUNT, stored.getSatData().size());
+        assertEquals(LATER, stored.getDirectorySyncedUpTo());
+    }
+
+    /**
+     * Checks that the schools, the indexes, the SAT score columns and the rankings of the directory
+     * all describe the same schools, and that it has every change of the refreshes before it.
+     */
+    private static void assertConsistent(SchoolDirectory schoolDirectory) {
+        SatScores satScores = schoolDirectory.getSatScores();
+        int movedCount = 0;
+        int satDataCount = 0;
+        for (int ordinal = 0; ordinal < schoolDirectory.size(); ordinal++) {
+            School school = schoolDirectory.getSchool(ordinal);
+            assertEquals(ordinal, schoolDirectory.indexOf(school.getName()));
+            assertEquals(school, schoolDirectory.getSchoolByDbn(school.getDbn().get()).get());
+            assertEquals(school.getSatData().isPresent(), satScores.hasSatData(ordinal));
+            int mathScore = school.getSatData()
+                    .map(satData -> satData.getAvgMathScore().orElse(SatScores.MISSING))
+                    .orElse(SatScores.MISSING);
+            assertEquals(mathScore, satScores.get(SatScores.Field.AVG_MATH_SCORE, ordinal));
+            if (school.getBorough().get().equals("BRONX")) {
+                movedCount++;
+            }
+            if (school.getSatData().isPresent()) {
+                satDataCount++;
+            }
+        }
+        // Every refresh after the first version moves one school and adds the SAT data of one.
+        assertEquals(schoolDirectory.getVersion() - 1, movedCount);
+        assertEquals(schoolDirectory.getVersion() - 1, satDataCount);
+
+        // The rankings must be of the same scores, so sorting by them gives descending scores.
+        SchoolSearchResult result = schoolDirectory.newSearchResult();
+        schoolDirectory.query(SchoolQuery.ALL.sortedBy(SchoolQuery.Key.AVG_MATH_SCORE), result);
+        int previousScore = Integer.MAX_VALUE;
+        for (int i = 0; i < result.size(); i++) {
+            int ordinal = result.getOrdinal(i);
+            if (!satScores.has(SatScores.Field.AVG_MATH_SCORE, ordinal)) {
+                continue;
+            }
+            int score = satScores.get(SatScores.Field.AVG_MATH_SCORE, ordinal);
+            assertTrue(score <= previousScore);
+            previousScore = score;
+        }
+    }
+
+    private static String name(int i) {
+        return String.format(Locale.US, "School %03d", i);
+    }
+
+    private static String dbn(int i) {
+        return String.format(Locale.US, "02M%03d", i);
+    }
+
+    /**
+     * Replies that the data sets have not been modified to a revalidation, and to every request for
+     * the changes since the last sync with a change to the next school. Changes to the directory
+     * move the school to another borough, and changes to the SAT data give it a score.
+     */
+    private static class ChangingTransport implements HttpTransport {
+        private final AtomicInteger nextDirectoryChange = new AtomicInteger();
+        private final AtomicInteger nextSatDataChange = new AtomicInteger();
+
+        @Override
+        public Response get(String url, Map<String, String> headers) {
+            if (!url.contains("$where=")) {
+                return respond(HttpURLConnection.HTTP_NOT_MODIFIED, "");
+            }
+            if (url.startsWith(SchoolDirectoryController.SCHOOL_DIRECTORY_JSON)) {
+                int i = nextDirectoryChange.getAndIncrement();
+                return respond(HttpURLConnection.HTTP_OK, "[{\"dbn\":\"" + dbn(i) + "\","
+                        + "\"school_name\":\"" + name(i) + "\",\"borough\":\"BRONX\","
+                        + "\":updated_at\":\"" + LATER + "\"}]");
+            }
+            int i = nextSatDataChange.getAndIncrement();
+            return respond(HttpURLConnection.HTTP_OK, "["
+                    + SchoolDirectoryControllerTest.satRecordJson(dbn(i), name(i), 200 + i, LATER)
+                    + "]");
+        }
+
+        private static Response respond(int statusCode, String json) {
+            InputStream body = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+            return new Response() {
+                @Override
+                public int getStatusCode() {
+                    return statusCode;
+                }
+
+                @Nullable
+                @Override
+                public String getHeader(String name) {
+                    return null;
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return body;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    body.close();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package com.example.nycschool;
+
+import static com.example.nycschool.SchoolDirectoryController.SCHOOL_DIRECTORY_JSON;
+import static com.example.nycschool.SchoolDirectoryController.SCHOOL_SAT_DATA_JSON;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.nycschool.FakeHttpTransport.FakeResponse;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import rx.Subscription;
+
+public class SchoolDirectoryControllerTest {
+    private static final String SYNCED_UP_TO = "2026-01-01T00:00:00.000Z";
+    private static final String LATER = "2026-02-01T00:00:00.000Z";
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final String DIRECTORY_JSON = "["
+            + "{\"dbn\":\"01M292\",\"school_name\":\"Henry Street School\","
+            + "\"borough\":\"MANHATTAN\",\":updated_at\":\"" + SYNCED_UP_TO + "\"},"
+            + "{\"dbn\":\"09X100\",\"school_name\":\"Bronx Arts\","
+            + "\"borough\":\"BRONX\",\":updated_at\":\"" + SYNCED_UP_TO + "\"}]";
+    // The SAT record of Henry Street has an outdated DBN, so it is only joined by name.
+    private static final String SAT_JSON = "["
+            + satRecordJson("99X999", "HENRY STREET SCHOOL", 400, SYNCED_UP_TO) + ","
+            + satRecordJson("09X100", "BRONX ARTS", 500, SYNCED_UP_TO) + "]";
+
+    @Rule public final TemporaryFolder storageDirectory = new TemporaryFolder();
+
+    private final FakeHttpTransport transport = new FakeHttpTransport();
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void refresh_updatesSchoolJoinedByName() throws IOException {
+        transport
+                .respond(SCHOOL_DIRECTORY_JSON, FakeResponse.ok(bytes("[]")))
+                .respond(SCHOOL_SAT_DATA_JSON, FakeResponse.ok(bytes(
+                        "[" + satRecordJson("99X999", "HENRY STREET SCHOOL", 555, LATER) + "]")));
+        SchoolDirectoryController controller = createController(
+                bundle(snapshot(DIRECTORY_JSON, SAT_JSON, SYNCED_UP_TO)),
+                SchoolDirectoryController.LoadingMode.EAGER_SAT);
+
+        // The bundled snapshot, then the changes since it was generated.
+        List<LoadResult> results = controller.initialize(executor)
+                .take(2)
+                .toList()
+                .toBlocking()
+                .single();
+
+        SchoolDirectoryUpdate update = results.get(1).getUpdate().get();
+        assertEquals(1, update.getChangedSchools().size());
+        assertEquals("Henry Street School", update.getChangedSchools().get(0).getName());
+        assertEquals(555, mathScore(update.getSchoolDirectory(), "Henry Street School"));
+        assertEquals(555, mathScore(controller.getSchoolDirectory().get(), "Henry Street School"));
+        assertEquals(500, mathScore(controller.getSchoolDirectory().get(), "Bronx Arts"));
+    }
+
+    @Test
+    public void initialize_showsBundledSnapshotThenRefreshes() throws IOException {
+        transport
+                .respond(SCHOOL_DIRECTORY_JSON, FakeResponse.ok(bytes("[{\"dbn\":\"02M300\","
+                        + "\"school_name\":\"Chelsea School\",\"borough\":\"MANHATTAN\","
+                        + "\":updated_at\":\"" + LATER + "\"}]")))
+                .respond(SCHOOL_SAT_DATA_JSON, FakeResponse.ok(bytes("[]")));
+        SchoolDirectoryController controller = createController(
+                bundle(snapshot(DIRECTORY_JSON, SAT_JSON, SYNCED_UP_TO)),
+                SchoolDirectoryController.LoadingMode.EAGER_SAT);
+
+        List<LoadResult> results = controller.initialize(executor)
+                .take(2)
+                .toList()
+                .toBlocking()
+                .single();
+
+        // Nothing was stored, so the bundled snapshot is shown first.
+        SchoolDirectoryUpdate bundledUpdate = results.get(0).getUpdate().get();
+        assertEquals(2, bundledUpdate.getSchoolDirectory().size());
+        assertEquals(400, mathScore(bundledUpdate.getSchoolDirectory(), "Henry Street School"));
+        // Then only the records that changed since it was generated are fetched.
+        SchoolDirectoryUpdate refreshedUpdate = results.get(1).getUpdate().get();
+        assertEquals(3, refreshedUpdate.getSchoolDirectory().size());
+        assertEquals(1, refreshedUpdate.getChangedSchools().size());
+        assertEquals("Chelsea School", refreshedUpdate.getChangedSchools().get(0).getName());
+        assertEquals(2, transport.getRequestedUrls().size());
+        for (String url : transport.getRequestedUrls()) {
+            assertTrue(url, url.contains("$where="));
+        }
+        // The bundled snapshot was stored and is updated in place.
+        SchoolDirectorySnapshot stored =
+                new SchoolDirectoryStore(storageDirectory.getRoot()).read().get();
+        assertEquals(3, stored.getDirectorySchools().size());
+        assertEquals(LATER, stored.getDirectorySyncedUpTo());
+        assertEquals(SYNCED_UP_TO, stored.getSatSyncedUpTo());
+    }
+
+    @Test
+    public void revalidate_fetchesDataSetsInParallel() throws IOException {
+        SchoolDirectory directoryFirst = revalidateInOrder(/*satDataFirst=*/ false);
+        SchoolDirectory satDataFirst = revalidateInOrder(/*satDataFirst=*/ true);
+
+        // Whichever data set arrives first, the merged directory is the same.
+        assertEquals(SocrataFixtures.DIRECTORY_RECORDS, directoryFirst.size());
+        assertEquals(describe(directoryFirst), describe(satDataFirst));
+    }
+
+    /**
+     * Revalidates a stored snapshot against the fixture data sets and returns the revalidated
+     * directory. Neither data set is served until both have been requested, so the revalidation
+     * only succeeds if they are fetched in parallel. Then the one given first is served in full
+     * before the other.
+     */
+    private SchoolDirectory revalidateInOrder(boolean satDataFirst) throws IOException {
+        File storage = storageDirectory.newFolder();
+        new SchoolDirectoryStore(storage).write(snapshot(DIRECTORY_JSON, SAT_JSON, SYNCED_UP_TO));
+        CyclicBarrier bothRequested = new CyclicBarrier(2);
+        CountDownLatch firstServed = new CountDownLatch(1);
+        FakeResponse directoryResponse = FakeResponse.ok(SocrataFixtures.schoolDirectoryJson(1))
+                .withBarrier(bothRequested);
+        FakeResponse satDataResponse = FakeResponse.ok(SocrataFixtures.satDataJson(1))
+                .withBarrier(bothRequested);
+        if (satDataFirst) {
+            satDataResponse.countingDownOnClose(firstServed);
+            directoryResponse.waitingFor(firstServed);
+        } else {
+            directoryResponse.countingDownOnClose(firstServed);
+            satDataResponse.waitingFor(firstServed);
+        }
+        transport
+                .respond(SCHOOL_DIRECTORY_JSON, directoryResponse)
+                .respond(SCHOOL_SAT_DATA_JSON, satDataResponse);
+        SchoolDirectoryController controller = createController(
+                storage, BundledSnapshot.NONE, SchoolDirectoryController.LoadingMode.EAGER_SAT);
+
+        // The stored snapshot, then the revalidated one. A failed revalidation emits nothing.
+        LoadResult revalidated = controller.initialize(executor)
+                .take(2)
+                .timeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .toBlocking()
+                .last();
+
+        return revalidated.getUpdate().get().getSchoolDirectory();
+    }
+
+    @Test
+    public void revalidate_notModifiedKeepsStoredDirectory() throws Exception {
+        SchoolDirectorySnapshot parsed = snapshot(DIRECTORY_JSON, SAT_JSON, SYNCED_UP_TO);
+        new SchoolDirectoryStore(storageDirectory.getRoot()).write(new SchoolDirectorySnapshot(
+                parsed.getDirectorySchools(),
+                parsed.getSatData(),
+                new HttpValidators("\"directory-1\"", null),
+                new HttpValidators(null, "Wed, 01 Jan 2026 00:00:00 GMT"),
+                SYNCED_UP_TO,
+                SYNCED_UP_TO));
+        CountDownLatch bothRevalidated = new CountDownLatch(2);
+        transport
+                .respond(SCHOOL_DIRECTORY_JSON, FakeResponse.status(HTTP_NOT_MODIFIED)
+                        .countingDownOnClose(bothRevalidated))
+                .respond(SCHOOL_SAT_DATA_JSON, FakeResponse.status(HTTP_NOT_MODIFIED)
+                        .countingDownOnClose(bothRevalidated));
+        HistogramMetricsSink metricsSink = new HistogramMetricsSink();
+        SchoolDirectoryController controller = createController(
+                storageDirectory.getRoot(),
+                BundledSnapshot.NONE,
+                SchoolDirectoryController.LoadingMode.EAGER_SAT,
+                new Metrics(metricsSink));
+        // A single thread, so that once a task queued after both responses were closed has run,
+        // the revalidation has finished with them too.
+        ScheduledExecutorService singleThreadExecutor =
+                Executors.newSingleThreadScheduledExecutor();
+        List<LoadResult> results = Collections.synchronizedList(new ArrayList<>());
+        Subscription subscription =
+                controller.initialize(singleThreadExecutor).subscribe(results::add);
+        try {
+            assertTrue(bothRevalidated.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            singleThreadExecutor.submit(() -> {}).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } finally {
+            subscription.unsubscribe();
+            singleThreadExecutor.shutdownNow();
+        }
+
+        // Only the stored snapshot, since neither data set changed.
+        assertEquals(1, results.size());
+        SchoolDirectory stored = results.get(0).getUpdate().get().getSchoolDirectory();
+        assertEquals(1, stored.getVersion());
+        assertTrue(stored == controller.getSchoolDirectory().get());
+        assertEquals(400, mathScore(stored, "Henry Street School"));
+        assertEquals(
+                "\"directory-1\"",
+                transport.getRequestHeaders(SCHOOL_DIRECTORY_JSON).get("If-None-Match"));
+        assertEquals(
+                "Wed, 01 Jan 2026 00:00:00 GMT",
+                transport.getRequestHeaders(SCHOOL_SAT_DATA_JSON).get("If-Modified-Since"));
+        // Nothing was parsed, and nothing failed.
+        assertFalse(metricsSink.getHistogram(Metrics.PARSE_TIME).isPresent());
+        assertFalse(metricsSink.getHistogram(Metrics.RECORDS_PARSED).isPresent());
+        for (String name : metricsSink.getHistograms().keySet()) {
+            assertFalse(name, name.startsWith("load.errors."));
+        }
+    }
+
+    @Test
+    public void initialize_fetchesFirstPageAndSatDataInParallel() {
+        // Neither is served until both have been requested.
+        CyclicBarrier bothRequested = new CyclicBarrier(2);
+        transport
+                .respond(SCHOOL_DIRECTORY_JSON,
+                        FakeResponse.ok(bytes(DIRECTORY_JSON)).withBarrier(bothRequested))
+                .respond(SCHOOL_SAT_DATA_JSON,
+                        FakeResponse.ok(bytes(SAT_JSON)).withBarrier(bothRequested));
+        SchoolDirectoryController controller = createController(
+                BundledSnapshot.NONE, SchoolDirectoryController.LoadingMode.EAGER_SAT);
+
+        LoadResult result = controller.initialize(executor)
+                .timeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .toBlocking()
+                .first();
+
+        SchoolDirectory schoolDirectory = result.getUpdate().get().getSchoolDirectory();
+        assertEquals(400, mathScore(schoolDirectory, "Henry Street School"));
+        assertEquals(500, mathScore(schoolDirectory, "Bronx Arts"));
+    }
+
+    @Test
+    public void loadSatData_waitsForPrefetchInFlight() {
+        transport.respond(SCHOOL_SAT_DATA_JSON, FakeResponse.ok(bytes(
+                "[" + satRecordJson("09X100", "BRONX ARTS", 500, SYNCED_UP_TO) + "]"))
+                .withDelay(200));
+        SchoolDirectoryController controller = createController(
+                BundledSnapshot.NONE, SchoolDirectoryController.LoadingMode.LAZY_SAT);
+        School school = School.builder().setName("Bronx Arts").setDbn("09X100").build();
+
+        controller.prefetchSatData(Collections.singletonList(school), executor);
+        SchoolSatData satData = controller.loadSatData(school, executor).toBlocking().value();
+        SchoolSatData cachedSatData = controller.loadSatData(school, executor).toBlocking().value();
+
+        assertEquals(500, satData.getAvgMathScore().getAsInt());
+        assertEquals(satData, cachedSatData);
+        assertEquals(satData, controller.getLoadedSatData(school).get());
+        assertEquals(1, transport.getRequestedUrls().size());
+    }
+
+    @Test
+    public void loadSatData_fetchesAgainAfterFailure() {
+        transport.respond(SCHOOL_SAT_DATA_JSON,
+                FakeResponse.status(500),
+                FakeResponse.ok(bytes("[]")));
+        SchoolDirectoryController controller = createController(
+                BundledSnapshot.NONE, SchoolDirectoryController.LoadingMode.LAZY_SAT);
+        School school = School.builder().setName("Bronx Arts").setDbn("09X100").build();
+
+        try {
+            controller.loadSatData(school, executor).toBlocking().value();
+            fail();
+        } catch (RuntimeException e) {
+            // Expected.
+        }
+        // Not in the SAT data set, so it gets SAT data with no values set.
+        SchoolSatData satData = controller.loadSatData(school, executor).toBlocking().value();
+
+        assertFalse(satData.getAvgMathScore().isPresent());
+        assertEquals(2, transport.getRequestedUrls().size());
+    }
+
+    @Test
+    public void initialize_emitsEveryPageAsItLoads() {
+        transport
+                .respond(SCHOOL_DIRECTORY_JSON,
+                        FakeResponse.ok(bytes(directoryPageJson(0, 100))),
+                        FakeResponse.ok(bytes(directoryPageJson(100, 100))),
+                        FakeResponse.ok(bytes(directoryPageJson(200, 150))))
+                .respond(SCHOOL_SAT_DATA_JSON, FakeResponse.ok(bytes("[]")));
+        SchoolDirectoryController controller = createController(
+                BundledSnapshot.NONE, SchoolDirectoryController.LoadingMode.EAGER_SAT);
+
+        List<LoadResult> results = controller.initialize(executor)
+                .doOnNext(result -> requestNextPage(controller, result))
+                .take(3)
+                .toList()
+                .toBlocking()
+                .single();
+
+        int[] expectedSizes = {100, 200, 350};
+        for (int i = 0; i < expectedSizes.length; i++) {
+            SchoolDirectoryUpdate update = results.get(i).getUpdate().get();
+            assertEquals(expectedSizes[i], update.getSchoolDirectory().size());
+            assertEquals(i < 2, update.hasMorePages());
+        }
+        List<String> directoryUrls = new ArrayList<>();
+        for (String url : transport.getRequestedUrls()) {
+            if (url.startsWith(SCHOOL_DIRECTORY_JSON)) {
+                directoryUrls.add(url);
+            }
+        }
+        assertEquals(3, directoryUrls.size());
+        // The SAT data set is fetched once, along with the first page.
+        assertEquals(4, transport.getRequestedUrls().size());
+        // Every page is as large as the ones before it together.
+        int[] expectedLimits = {100, 100, 200};
+        for (int i = 0; i < directoryUrls.size(); i++) {
+            assertTrue(directoryUrls.get(i).contains("$order=school_name%2Cdbn"));
+            assertTrue(directoryUrls.get(i).endsWith(
+                    "$limit=" + expectedLimits[i] + "&$offset=" + i * 100));
+        }
+        SchoolDirectorySnapshot stored =
+                new SchoolDirectoryStore(storageDirectory.getRoot()).read().get();
+        assertEquals(350, stored.getDirectorySchools().size());
+        assertEquals(SYNCED_UP_TO, stored.getDirectorySyncedUpTo());
+    }
+
+    @Test
+    public void initialize_storesPagesLoadedBeforeFailure() {
+        transport
+                .respond(SCHOOL_DIRECTORY_JSON,
+                        FakeResponse.ok(bytes(directoryPageJson(0, 100))),
+                        FakeResponse.failure(new IOException("Connection reset")))
+                .respond(SCHOOL_SAT_DATA_JSON, FakeResponse.ok(bytes("[]")));
+        SchoolDirectoryController controller = createController(
+                BundledSnapshot.NONE, SchoolDirectoryController.LoadingMode.EAGER_SAT);
+
+        List<LoadResult> results = controller.initialize(executor)
+                .doOnNext(result -> requestNextPage(controller, result))
+                .take(2)
+                .toList()
+                .toBlocking()
+                .single();
+
+        assertEquals(100, results.get(0).getUpdate().get().getSchoolDirectory().size());
+        assertTrue(results.get(1).getError().isPresent());
+        // Not synced up to any time, so the next start fetches the data sets in full.
+        SchoolDirectorySnapshot stored =
+                new SchoolDirectoryStore(storageDirectory.getRoot()).read().get();
+        assertEquals(100, stored.getDirectorySchools().size());
+        assertNull(stored.getDirectorySyncedUpTo());
+    }
+
+    /** Requests the next page if there is one, like the list does when scrolled near its end. */
+    private static void requestNextPage(SchoolDirectoryController controller, LoadResult result) {
+        if (result.getUpdate().isPresent() && result.getUpdate().get().hasMorePages()) {
+            controller.loadNextPage();
+        }
+    }
+
+    private SchoolDirectoryController createController(
+            BundledSnapshot bundledSnapshot, SchoolDirectoryController.LoadingMode loadingMode) {
+        return createController(storageDirectory.getRoot(), bundledSnapshot, loadingMode);
+    }
+
+    private SchoolDirectoryController createController(
+            File storage,
+            BundledSnapshot bundledSnapshot,
+            SchoolDirectoryController.LoadingMode loadingMode) {
+        return createController(storage, bundledSnapshot, loadingMode, Metrics.NO_OP);
+    }
+
+    private SchoolDirectoryController createController(
+            File storage,
+            BundledSnapshot bundledSnapshot,
+            SchoolDirectoryController.LoadingMode loadingMode,
+            Metrics metrics) {
+        return new SchoolDirectoryController(
+                new JsonFetcher(transport, RetryPolicy.NO_RETRIES, metrics),
+                storage,
+                bundledSnapshot,
+                loadingMode,
+                metrics);
+    }
+
+    private static int mathScore(SchoolDirectory schoolDirectory, String name) {
+        return schoolDirectory.getSchoolData(name).get()
+                .getSatData().get()
+                .getAvgMathScore().getAsInt();
+    }
+
+    /** Returns every school of the directory with its SAT scores, in order. */
+    private static List<String> describe(SchoolDirectory schoolDirectory) {
+        ArrayList<String> schools = new ArrayList<>();
+        for (int ordinal = 0; ordinal < schoolDirectory.size(); ordinal++) {
+            School school = schoolDirectory.getSchool(ordinal);
+            schools.add(school.getName() + " " + school.getDbn() + " " + school.getBorough()
+                    + " " + school.getSatData().map(satData -> satData.getNumTestTakers() + " "
+                            + satData.getAvgReadingScore() + " " + satData.getAvgMathScore()
+                            + " " + satData.getAvgWritingScore()));
+        }
+        return schools;
+    }
+
+    static SchoolDirectorySnapshot snapshot(
+            String directoryJson, String satJson, String syncedUpTo) throws IOException {
+        HashMap<String, School> directorySchools = new HashMap<>();
+        JsonFetcher.readRecords(
+                new ByteArrayInputStream(bytes(directoryJson)),
+                new SchoolTypeAdapter(),
+                school -> SchoolDirectoryController.addSchool(directorySchools, school));
+        HashMap<String, School> satData = new HashMap<>();
+        JsonFetcher.readRecords(
+                new ByteArrayInputStream(bytes(satJson)),
+                new SatRecordTypeAdapter(),
+                satRecord -> SchoolDirectoryController.addSatData(satData, satRecord));
+        return new SchoolDirectorySnapshot(
+                directorySchools,
+                satData,
+                HttpValidators.NONE,
+                HttpValidators.NONE,
+                syncedUpTo,
+                syncedUpTo);
+    }
+
+    static BundledSnapshot bundle(SchoolDirectorySnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SchoolDirectoryStore.write(snapshot, bytes);
+        return () -> new ByteArrayInputStream(bytes.toByteArray());
+    }
+
+    /** Returns the schools from the first one on, named so that they sort in that order. */
+    private static String directoryPageJson(int first, int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = first; i < first + count; i++) {
+            if (i > first) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.US,
+                    "{\"dbn\":\"02M%03d\",\"school_name\":\"School %03d\","
+                            + "\"borough\":\"MANHATTAN\",\":updated_at\":\"%s\"}",
+                    i, i, SYNCED_UP_TO));
+        }
+        return json.append(']').toString();
+    }
+
+    static String satRecordJson(String dbn, String name, int mathScore, String updatedAt) {
+        return "{\"dbn\":\"" + dbn + "\",\"school_name\":\"" + name + "\","
+                + "\":updated_at\":\"" + updatedAt + "\","
+                + "\"num_of_sat_test_takers\":\"50\","
+                + "\"sat_critical_reading_avg_score\":\"400\","
+                + "\"sat_math_avg_score\":\"" + mathScore + "\","
+                + "\"sat_writing_avg_score\":\"400\"}";
+    }
+
+    static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Optional;
+
+public class SchoolDirectoryStoreTest {
+    private static final String SYNCED_UP_TO = "2026-01-01T00:00:00.000Z";
+    // Long enough to be kept in a slab, and not only as a preview.
+    private static final String OVERVIEW = String.join(" ", new String[] {
+            "Students at the Henry Street School for International Studies take part in",
+            "internships, college visits and advisory groups, and the school\u2019s clubs meet",
+            "every afternoon. Our caf\u00e9 is run by the students themselves."});
+
+    @Rule public final TemporaryFolder storageDirectory = new TemporaryFolder();
+
+    @Test
+    public void write_roundTripsEveryField() throws IOException {
+        SchoolDirectorySnapshot snapshot = createSnapshot();
+        SchoolDirectoryStore store = new SchoolDirectoryStore(storageDirectory.getRoot());
+
+        store.write(snapshot);
+        SchoolDirectorySnapshot read = store.read().get();
+
+        assertEquals("\"etag-1\"", read.getDirectoryValidators().getEtag());
+        assertEquals(
+                "Wed, 01 Jan 2026 00:00:00 GMT", read.getDirectoryValidators().getLastModified());
+        assertNull(read.getSatValidators().getEtag());
+        assertNull(read.getSatValidators().getLastModified());
+        assertEquals(SYNCED_UP_TO, read.getDirectorySyncedUpTo());
+        assertNull(read.getSatSyncedUpTo());
+
+        assertEquals(2, read.getDirectorySchools().size());
+        School henryStreet = read.getDirectorySchools().get("Henry Street School");
+        assertEquals(Optional.of("01M292"), henryStreet.getDbn());
+        assertEquals(Optional.of("MANHATTAN"), henryStreet.getBorough());
+        assertEquals(OVERVIEW, henryStreet.getOverview().get().getText());
+        School bronxArts = read.getDirectorySchools().get("Bronx Arts");
+        assertFalse(bronxArts.getDbn().isPresent());
+        assertFalse(bronxArts.getBorough().isPresent());
+        assertFalse(bronxArts.getOverview().isPresent());
+
+        assertEquals(2, read.getSatData().size());
+        School satRecord = read.getSatData().get("01M292");
+        assertEquals("HENRY STREET SCHOOL", satRecord.getName());
+        assertEquals(Optional.of("01M292"), satRecord.getDbn());
+        SchoolSatData satData = satRecord.getSatData().get();
+        assertEquals(50, satData.getNumTestTakers().getAsInt());
+        assertEquals(410, satData.getAvgReadingScore().getAsInt());
+        assertEquals(420, satData.getAvgMathScore().getAsInt());
+        // A score of 0 is a score, not a missing one.
+        assertEquals(0, satData.getAvgWritingScore().getAsInt());
+        // Keyed by name, since it has no DBN, and without any scores.
+        School nameKeyedRecord = read.getSatData().get("BRONX ARTS");
+        assertFalse(nameKeyedRecord.getDbn().isPresent());
+        SchoolSatData missingSatData = nameKeyedRecord.getSatData().get();
+        assertFalse(missingSatData.getNumTestTakers().isPresent());
+        assertFalse(missingSatData.getAvgReadingScore().isPresent());
+        assertFalse(missingSatData.getAvgMathScore().isPresent());
+        assertFalse(missingSatData.getAvgWritingScore().isPresent());
+    }
+
+    @Test
+    public void write_replacesPreviousSnapshot() throws IOException {
+        SchoolDirectoryStore store = new SchoolDirectoryStore(storageDirectory.getRoot());
+        store.write(createSnapshot());
+
+        store.write(new SchoolDirectorySnapshot(
+                new HashMap<>(), new HashMap<>(), HttpValidators.NONE, HttpValidators.NONE,
+                null, null));
+
+        assertTrue(store.read().get().getDirectorySchools().isEmpty());
+        assertEquals(1, storageDirectory.getRoot().list().length);
+    }
+
+    @Test
+    public void read_rejectsOtherVersion() throws IOException {
+        byte[] bytes = toBytes(createSnapshot());
+        // The version follows the magic number.
+        ByteBuffer header = ByteBuffer.wrap(bytes);
+        header.putInt(4, header.getInt(4) + 1);
+
+        assertFalse(SchoolDirectoryStore.read(new ByteArrayInputStream(bytes)).isPresent());
+    }
+
+    @Test
+    public void read_rejectsOtherFormat() throws IOException {
+        byte[] bytes = toBytes(createSnapshot());
+        bytes[0] ^= 0xff;
+
+        assertFalse(SchoolDirectoryStore.read(new ByteArrayInputStream(bytes)).isPresent());
+    }
+
+    @Test
+    public void read_rejectsTruncatedSnapshot() throws IOException {
+        byte[] bytes = toBytes(createSnapshot());
+        File file = new File(storageDirectory.getRoot(), "school_directory.bin");
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(Arrays.copyOf(bytes, bytes.length - 10));
+        }
+
+        assertFalse(new SchoolDirectoryStore(storageDirectory.getRoot()).read().isPresent());
+    }
+
+    @Test
+    public void read_withoutSnapshot() {
+        assertFalse(new SchoolDirectoryStore(storageDirectory.getRoot()).read().isPresent());
+    }
+
+    private static SchoolDirectorySnapshot createSnapshot() {
+        HashMap<String, School> directorySchools = new HashMap<>();
+        directorySchools.put("Henry Street School", School.builder()
+                .setName("Henry Street School")
+                .setDbn("01M292")
+                .setBorough("MANHATTAN")
+                .setOverview(new Overview.Allocator().of(OVERVIEW))
+                .build());
+        directorySchools.put("Bronx Arts", School.builder().setName("Bronx Arts").build());
+
+        HashMap<String, School> satData = new HashMap<>();
+        satData.put("01M292", School.builder()
+                .setName("HENRY STREET SCHOOL")
+                .setDbn("01M292")
+                .setSatData(SchoolSatData.builder()
+                        .setNumTestTakers(50)
+                        .setAvgReadingScore(410)
+                        .setAvgMathScore(420)
+                        .setAvgWritingScore(0)
+                        .build())
+                .build());
+        satData.put("BRONX ARTS", School.builder()
+                .setName("BRONX ARTS")
+                .setSatData(SchoolSatData.EMPTY)
+                .build());
+
+        return new SchoolDirectorySnapshot(
+                directorySchools,
+                satData,
+                new HttpValidators("\"etag-1\"", "Wed, 01 Jan 2026 00:00:00 GMT"),
+                HttpValidators.NONE,
+                SYNCED_UP_TO,
+                null);
+    }
+
+    private static byte[] toBytes(SchoolDirectorySnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SchoolDirectoryStore.write(snapshot, bytes);
+        return bytes.toByteArray();
+    }
+}
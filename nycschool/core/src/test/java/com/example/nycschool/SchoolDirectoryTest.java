@@ -0,0 +1,172 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+public class SchoolDirectoryTest {
+    private static final School HENRY_STREET = School.builder()
+            .setName("Henry Street School")
+            .setDbn("01M292")
+            .setBorough("MANHATTAN")
+            .build();
+    private static final School BRONX_ARTS = School.builder()
+            .setName("Bronx Arts")
+            .setDbn("09X100")
+            .setBorough("BRONX")
+            .build();
+    private static final School BRONX_SCIENCE = School.builder()
+            .setName("Bronx High School of Science")
+            .setDbn("10X445")
+            .setBorough("BRONX")
+            .build();
+    private static final School HIGH_SCHOOL_FOR_MATH = School.builder()
+            .setName("High School for Math, Science and Engineering")
+            .setDbn("05M692")
+            .setBorough("MANHATTAN")
+            .build();
+
+    @Test
+    public void withChangedSchools_changedSatDataKeepsOrdinals() {
+        SchoolDirectory schoolDirectory = new SchoolDirectory(1, schools(HENRY_STREET, BRONX_ARTS));
+        SchoolSatData satData = SchoolSatData.builder().setAvgMathScore(500).build();
+
+        SchoolDirectory changed = schoolDirectory.withChangedSchools(
+                2, Collections.singletonList(BRONX_ARTS.withSatData(satData)));
+
+        assertTrue(changed.sharesOrdinalsWith(schoolDirectory));
+        int ordinal = changed.indexOf("Bronx Arts");
+        assertEquals(schoolDirectory.indexOf("Bronx Arts"), ordinal);
+        assertEquals(500, changed.getSatScores().get(SatScores.Field.AVG_MATH_SCORE, ordinal));
+    }
+
+    @Test
+    public void withChangedSchools_newSchoolRebuildsOrdinals() {
+        SchoolDirectory schoolDirectory = new SchoolDirectory(1, schools(HENRY_STREET));
+
+        SchoolDirectory changed =
+                schoolDirectory.withChangedSchools(2, Collections.singletonList(BRONX_ARTS));
+
+        assertFalse(changed.sharesOrdinalsWith(schoolDirectory));
+        assertEquals(2, changed.size());
+        // Sorted by name, so the new school comes first.
+        assertEquals(1, changed.indexOf("Henry Street School"));
+    }
+
+    @Test
+    public void search_matchesWordPrefixes() {
+        SchoolDirectory schoolDirectory = searchableDirectory();
+
+        assertEquals(Arrays.asList("Henry Street School"), search(schoolDirectory, "stre"));
+        // Only the start of a word matches.
+        assertEquals(Collections.emptyList(), search(schoolDirectory, "treet"));
+        assertEquals(
+                Arrays.asList(
+                        "Bronx High School of Science",
+                        "High School for Math, Science and Engineering"),
+                search(schoolDirectory, "sci"));
+    }
+
+    @Test
+    public void search_matchesEveryWordInAnyOrder() {
+        SchoolDirectory schoolDirectory = searchableDirectory();
+
+        assertEquals(
+                Arrays.asList("Bronx High School of Science"),
+                search(schoolDirectory, "sch bronx"));
+        assertEquals(
+                Arrays.asList(
+                        "Bronx High School of Science",
+                        "High School for Math, Science and Engineering"),
+                search(schoolDirectory, "  high   sch "));
+        assertEquals(
+                Arrays.asList("High School for Math, Science and Engineering"),
+                search(schoolDirectory, "math, sci"));
+        // Both words match, but not in the same school.
+        assertEquals(Collections.emptyList(), search(schoolDirectory, "bronx math"));
+    }
+
+    @Test
+    public void search_ignoresCase() {
+        SchoolDirectory schoolDirectory = searchableDirectory();
+
+        List<String> expected = Arrays.asList("Bronx Arts", "Bronx High School of Science");
+        assertEquals(expected, search(schoolDirectory, "BRONX"));
+        assertEquals(expected, search(schoolDirectory, "bRoNx"));
+    }
+
+    @Test
+    public void search_withoutWordsMatchesEverySchool() {
+        SchoolDirectory schoolDirectory = searchableDirectory();
+
+        assertEquals(4, search(schoolDirectory, "").size());
+        assertEquals(4, search(schoolDirectory, "   ").size());
+        assertEquals(4, search(schoolDirectory, " , ").size());
+    }
+
+    @Test
+    public void search_noMatch() {
+        SchoolDirectory schoolDirectory = searchableDirectory();
+
+        assertEquals(Collections.emptyList(), search(schoolDirectory, "queens"));
+        // Longer than any name it could match.
+        assertEquals(Collections.emptyList(), search(schoolDirectory, "streets"));
+    }
+
+    @Test
+    public void search_reusesResultAcrossQueries() {
+        SchoolDirectory schoolDirectory = searchableDirectory();
+        SchoolSearchResult result = schoolDirectory.newSearchResult();
+
+        // Each search starts from scratch, whatever the one before it left in the result.
+        assertEquals(4, search(schoolDirectory, "", result).size());
+        assertEquals(
+                Arrays.asList("Henry Street School"), search(schoolDirectory, "henry", result));
+        assertEquals(Collections.emptyList(), search(schoolDirectory, "queens", result));
+        assertEquals(
+                Arrays.asList("Bronx Arts", "Bronx High School of Science"),
+                search(schoolDirectory, "bronx", result));
+        schoolDirectory.query(
+                SchoolQuery.ALL.withText("high sch").sortedBy(SchoolQuery.Key.NAME), result);
+        assertEquals(2, result.size());
+        assertEquals(
+                Arrays.asList("Bronx High School of Science"),
+                search(schoolDirectory, "sch bronx", result));
+    }
+
+    private static SchoolDirectory searchableDirectory() {
+        return new SchoolDirectory(
+                1, schools(HENRY_STREET, BRONX_ARTS, BRONX_SCIENCE, HIGH_SCHOOL_FOR_MATH));
+    }
+
+    private static List<String> search(SchoolDirectory schoolDirectory, String query) {
+        return search(schoolDirectory, query, schoolDirectory.newSearchResult());
+    }
+
+    /** Returns the names of the matching schools, in the order of the result. */
+    private static List<String> search(
+            SchoolDirectory schoolDirectory, String query, SchoolSearchResult result) {
+        schoolDirectory.search(query, result);
+        ArrayList<String> names = new ArrayList<>();
+        for (int i = 0; i < result.size(); i++) {
+            names.add(schoolDirectory.getSchool(result.getOrdinal(i)).getName());
+        }
+        return names;
+    }
+
+    private static HashMap<String, School> schools(School... schools) {
+        HashMap<String, School> schoolsByName = new HashMap<>();
+        for (School school : schools) {
+            schoolsByName.put(school.getName(), school);
+        }
+        return schoolsByName;
+    }
+}
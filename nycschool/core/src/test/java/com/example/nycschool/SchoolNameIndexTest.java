@@ -0,0 +1,74 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class SchoolNameIndexTest {
+    @Test
+    public void get_ignoresCaseAndPunctuation() {
+        School school = school("Clinton School Writers & Artists, M.S. 260");
+        SchoolNameIndex index = new SchoolNameIndex(1);
+        index.add(school);
+
+        assertSame(school, index.get("CLINTON SCHOOL WRITERS ARTISTS MS 260"));
+        assertSame(school, index.get("clinton school writers/artists, m.s.260"));
+    }
+
+    @Test
+    public void get_missingName() {
+        SchoolNameIndex index = new SchoolNameIndex(1);
+        index.add(school("Bronx Arts"));
+
+        assertNull(index.get("Bronx Art"));
+        assertNull(index.get("Bronx Arts 2"));
+        assertNull(index.get(""));
+        assertNull(index.get(null));
+    }
+
+    @Test
+    public void add_keepsFirstSchoolWithSameNormalizedName() {
+        School first = school("P.S. 1");
+        SchoolNameIndex index = new SchoolNameIndex(2);
+        index.add(first);
+        index.add(school("PS 1"));
+
+        assertSame(first, index.get("ps1"));
+    }
+
+    @Test
+    public void get_tellsApartNamesWithSameHash() {
+        // "BP" and "C1" have the same hash, so they land in the same slot with the same hash and
+        // are only told apart by comparing the names.
+        School bp = school("School BP");
+        School c1 = school("School C1");
+        SchoolNameIndex index = new SchoolNameIndex(2);
+        index.add(bp);
+        index.add(c1);
+
+        assertSame(bp, index.get("SCHOOL BP"));
+        assertSame(c1, index.get("SCHOOL C1"));
+        assertNull(index.get("SCHOOL BQ"));
+    }
+
+    @Test
+    public void get_findsEverySchoolInFullTable() {
+        // More schools than expected, so nearly every slot is taken and most probes wrap around.
+        School[] schools = new School[15];
+        SchoolNameIndex index = new SchoolNameIndex(8);
+        for (int i = 0; i < schools.length; i++) {
+            schools[i] = school("School " + i);
+            index.add(schools[i]);
+        }
+
+        for (int i = 0; i < schools.length; i++) {
+            assertSame(schools[i], index.get("SCHOOL " + i));
+        }
+        assertNull(index.get("SCHOOL 15"));
+    }
+
+    private static School school(String name) {
+        return School.builder().setName(name).build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.nycschool;
+
+import static com.example.nycschool.SchoolRankingsTest.school;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+public class SchoolQueryTest {
+    private final SchoolDirectory schoolDirectory = directory(
+            school("Bronx Arts", 100, 400, 450, 400),
+            school("Bronx Science", 300, 600, 650, 600),
+            school("Brooklyn Tech", 250, 550, 650, 550),
+            school("Chelsea School", 99, 500, 500, 500),
+            school("Henry Street School", SatScores.MISSING, 380, 390, 370),
+            School.builder().setName("Queens School").build());
+
+    @Test
+    public void query_minimumIsInclusive() {
+        SchoolQuery query = SchoolQuery.ALL.withMinimum(SchoolQuery.Key.NUM_TEST_TAKERS, 100);
+
+        assertEquals(
+                Arrays.asList("Bronx Arts", "Bronx Science", "Brooklyn Tech"), names(query));
+    }
+
+    @Test
+    public void query_minimumExcludesSchoolsWithoutValue() {
+        SchoolQuery query = SchoolQuery.ALL.withMinimum(SchoolQuery.Key.NUM_TEST_TAKERS, 0);
+
+        assertEquals(
+                Arrays.asList("Bronx Arts", "Bronx Science", "Brooklyn Tech", "Chelsea School"),
+                names(query));
+    }
+
+    @Test
+    public void query_everyMinimumMustMatch() {
+        SchoolQuery query = SchoolQuery.ALL
+                .withMinimum(SchoolQuery.Key.AVG_MATH_SCORE, 500)
+                .withMinimum(SchoolQuery.Key.AVG_READING_SCORE, 550)
+                .sortedBy(SchoolQuery.Key.COMPOSITE_SCORE);
+
+        assertEquals(Arrays.asList("Bronx Science", "Brooklyn Tech"), names(query));
+    }
+
+    @Test
+    public void query_sortsMatchesByKeyWithMissingLast() {
+        SchoolQuery query = SchoolQuery.ALL.sortedBy(SchoolQuery.Key.NUM_TEST_TAKERS);
+
+        assertEquals(
+                Arrays.asList(
+                        "Bronx Science",
+                        "Brooklyn Tech",
+                        "Bronx Arts",
+                        "Chelsea School",
+                        "Henry Street School",
+                        "Queens School"),
+                names(query));
+    }
+
+    @Test
+    public void query_filtersTextAndMinimumsTogether() {
+        SchoolQuery query = SchoolQuery.ALL
+                .withText("bronx")
+                .withMinimum(SchoolQuery.Key.AVG_MATH_SCORE, 500)
+                .sortedBy(SchoolQuery.Key.AVG_MATH_SCORE);
+
+        assertEquals(Arrays.asList("Bronx Science"), names(query));
+    }
+
+    @Test
+    public void withoutMinimum_matchesEverySchoolAgain() {
+        SchoolQuery filtered = SchoolQuery.ALL.withMinimum(SchoolQuery.Key.AVG_MATH_SCORE, 600);
+
+        SchoolQuery unfiltered = filtered.withoutMinimum(SchoolQuery.Key.AVG_MATH_SCORE);
+
+        assertTrue(filtered.hasMinimums());
+        assertFalse(unfiltered.hasMinimums());
+        assertEquals(schoolDirectory.size(), names(unfiltered).size());
+        // Queries are immutable, so the filtered one still filters.
+        assertEquals(Arrays.asList("Bronx Science", "Brooklyn Tech"), names(filtered));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withMinimum_rejectsName() {
+        SchoolQuery.ALL.withMinimum(SchoolQuery.Key.NAME, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withMinimum_rejectsNegativeMinimum() {
+        SchoolQuery.ALL.withMinimum(SchoolQuery.Key.AVG_MATH_SCORE, -1);
+    }
+
+    private List<String> names(SchoolQuery query) {
+        SchoolSearchResult result = schoolDirectory.newSearchResult();
+        schoolDirectory.query(query, result);
+        ArrayList<String> names = new ArrayList<>();
+        for (int i = 0; i < result.size(); i++) {
+            names.add(schoolDirectory.getSchool(result.getOrdinal(i)).getName());
+        }
+        return names;
+    }
+
+    private static SchoolDirectory directory(School... schools) {
+        HashMap<String, School> schoolsByName = new HashMap<>();
+        for (School school : schools) {
+            schoolsByName.put(school.getName(), school);
+        }
+        return new SchoolDirectory(1, schoolsByName);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class SchoolRankingsTest {
+    // In name order, as in a directory.
+    private static final School[] SCHOOLS = {
+            school("A School", 80, 400, 500, 400),
+            school("B School", 120, 450, 600, 450),
+            school("C School", 100, 400, 500, 400),
+            school("D School", 90, 500, 700, SatScores.MISSING),
+            // In the SAT data set, but without any scores.
+            school("E School", SatScores.MISSING, SatScores.MISSING, SatScores.MISSING,
+                    SatScores.MISSING),
+            // Not in the SAT data set at all.
+            School.builder().setName("F School").build()
+    };
+
+    private final SchoolRankings rankings =
+            new SchoolRankings(new SatScores(SCHOOLS), SCHOOLS.length);
+
+    @Test
+    public void getOrder_sortsHighestFirstWithTiesInNameOrder() {
+        // A and C have the same math score, so they are in name order.
+        assertArrayEquals(
+                new int[] {3, 1, 0, 2, 4, 5}, rankings.getOrder(SchoolQuery.Key.AVG_MATH_SCORE));
+        assertArrayEquals(
+                new int[] {1, 2, 3, 0, 4, 5}, rankings.getOrder(SchoolQuery.Key.NUM_TEST_TAKERS));
+    }
+
+    @Test
+    public void getOrder_sortsSchoolsWithoutValueLastInNameOrder() {
+        // D has no writing score, so it has no composite score either.
+        assertArrayEquals(
+                new int[] {1, 0, 2, 3, 4, 5}, rankings.getOrder(SchoolQuery.Key.COMPOSITE_SCORE));
+        assertArrayEquals(
+                new int[] {1, 0, 2, 3, 4, 5},
+                rankings.getOrder(SchoolQuery.Key.AVG_WRITING_SCORE));
+    }
+
+    @Test
+    public void getOrder_nameIsDirectoryOrder() {
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5}, rankings.getOrder(SchoolQuery.Key.NAME));
+    }
+
+    @Test
+    public void getRank_tiedSchoolsShareRank() {
+        SchoolQuery.Key key = SchoolQuery.Key.AVG_MATH_SCORE;
+
+        assertEquals(1, rankings.getRank(key, 3));
+        assertEquals(2, rankings.getRank(key, 1));
+        assertEquals(3, rankings.getRank(key, 0));
+        assertEquals(3, rankings.getRank(key, 2));
+        assertEquals(4, rankings.getRankedCount(key));
+    }
+
+    @Test
+    public void getPercentile_countsSchoolsWithLowerValue() {
+        SchoolQuery.Key key = SchoolQuery.Key.AVG_MATH_SCORE;
+
+        // 3 of the 4 ranked schools are lower than D, and none are lower than A or C.
+        assertEquals(75, rankings.getPercentile(key, 3));
+        assertEquals(50, rankings.getPercentile(key, 1));
+        assertEquals(0, rankings.getPercentile(key, 0));
+        assertEquals(0, rankings.getPercentile(key, 2));
+    }
+
+    @Test
+    public void getRank_missingWithoutValue() {
+        SchoolQuery.Key key = SchoolQuery.Key.COMPOSITE_SCORE;
+
+        assertEquals(3, rankings.getRankedCount(key));
+        for (int ordinal = 3; ordinal < SCHOOLS.length; ordinal++) {
+            assertEquals(SatScores.MISSING, rankings.getRank(key, ordinal));
+            assertEquals(SatScores.MISSING, rankings.getPercentile(key, ordinal));
+        }
+        // The name is not a value, so nothing is ranked by it.
+        assertEquals(SatScores.MISSING, rankings.getRank(SchoolQuery.Key.NAME, 0));
+        assertEquals(0, rankings.getRankedCount(SchoolQuery.Key.NAME));
+    }
+
+    /** Returns a school with the given SAT data, leaving out the values that are MISSING. */
+    static School school(
+            String name, int numTestTakers, int avgReadingScore, int avgMathScore,
+            int avgWritingScore) {
+        SchoolSatData.Builder satData = SchoolSatData.builder();
+        if (numTestTakers != SatScores.MISSING) {
+            satData.setNumTestTakers(numTestTakers);
+        }
+        if (avgReadingScore != SatScores.MISSING) {
+            satData.setAvgReadingScore(avgReadingScore);
+        }
+        if (avgMathScore != SatScores.MISSING) {
+            satData.setAvgMathScore(avgMathScore);
+        }
+        if (avgWritingScore != SatScores.MISSING) {
+            satData.setAvgWritingScore(avgWritingScore);
+        }
+        return School.builder().setName(name).build().withSatData(satData.build());
+    }
+}
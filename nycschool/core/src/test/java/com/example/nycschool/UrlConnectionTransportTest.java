@@ -0,0 +1,264 @@
+package com.example.nycschool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+public class UrlConnectionTransportTest {
+    private static final String JSON = "[{\"dbn\":\"01M292\",\"school_name\":\"HENRY STREET\"}]";
+    private static final int READ_TIMEOUT_MILLIS = 200;
+
+    private final List<Long> downloadBytes = Collections.synchronizedList(new ArrayList<>());
+    private final Metrics metrics = new Metrics(new MetricsSink() {
+        @Override
+        public void onSpanStarted(String name, int spanId) {}
+
+        @Override
+        public void onSpanEnded(String name, int spanId, long durationNanos) {}
+
+        @Override
+        public void onSpanCancelled(String name, int spanId) {}
+
+        @Override
+        public void onValue(String name, long value) {
+            if (name.equals(Metrics.DOWNLOAD_BYTES)) {
+                downloadBytes.add(value);
+            }
+        }
+
+        @Override
+        public void onLoadError(LoadError error) {}
+    });
+    private final UrlConnectionTransport transport =
+            new UrlConnectionTransport(1000, READ_TIMEOUT_MILLIS, metrics);
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    private HttpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // Handlers that stall must not hold up the others.
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void get_decompressesGzipBody() throws IOException {
+        byte[] gzippedJson = gzip(JSON.getBytes(StandardCharsets.UTF_8));
+        List<String> acceptEncodings = Collections.synchronizedList(new ArrayList<>());
+        server.createContext("/gzip", exchange -> {
+            acceptEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            reply(exchange, 200, gzippedJson);
+        });
+
+        try (HttpTransport.Response response =
+                transport.get(url("/gzip"), Collections.emptyMap())) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals(JSON, readFully(response.getBody()));
+        }
+
+        assertEquals(Collections.singletonList("gzip"), acceptEncodings);
+        // The bytes received, not the bytes after decompressing.
+        assertEquals(Collections.singletonList((long) gzippedJson.length), downloadBytes);
+    }
+
+    @Test
+    public void get_readsUncompressedBody() throws IOException {
+        server.createContext("/plain",
+                exchange -> reply(exchange, 200, JSON.getBytes(StandardCharsets.UTF_8)));
+
+        try (HttpTransport.Response response =
+                transport.get(url("/plain"), Collections.emptyMap())) {
+            assertEquals(JSON, readFully(response.getBody()));
+        }
+    }
+
+    @Test
+    public void get_sendsRequestHeaders() throws IOException {
+        List<String> etags = Collections.synchronizedList(new ArrayList<>());
+        server.createContext("/conditional", exchange -> {
+            etags.add(exchange.getRequestHeaders().getFirst("If-None-Match"));
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+        });
+        HashMap<String, String> headers = new HashMap<>();
+        headers.put("If-None-Match", "\"v1\"");
+
+        try (HttpTransport.Response response = transport.get(url("/conditional"), headers)) {
+            assertEquals(304, response.getStatusCode());
+        }
+
+        assertEquals(Collections.singletonList("\"v1\""), etags);
+    }
+
+    @Test
+    public void get_reusesConnectionAfterBodyWasRead() throws IOException {
+        List<InetSocketAddress> clientAddresses = serveKeepAlive("/read");
+
+        for (int i = 0; i < 2; i++) {
+            try (HttpTransport.Response response =
+                    transport.get(url("/read"), Collections.emptyMap())) {
+                assertEquals(JSON, readFully(response.getBody()));
+            }
+        }
+
+        // Both requests came from the same client port, so over the same connection.
+        assertEquals(2, clientAddresses.size());
+        assertEquals(clientAddresses.get(0), clientAddresses.get(1));
+    }
+
+    @Test
+    public void get_reusesConnectionAfterUnreadBodyWasClosed() throws IOException {
+        List<InetSocketAddress> clientAddresses = serveKeepAlive("/unread");
+
+        // Like a response to a 304 or an error that is closed without reading its body.
+        transport.get(url("/unread"), Collections.emptyMap()).close();
+        try (HttpTransport.Response response =
+                transport.get(url("/unread"), Collections.emptyMap())) {
+            assertEquals(JSON, readFully(response.getBody()));
+        }
+
+        assertEquals(2, clientAddresses.size());
+        assertEquals(clientAddresses.get(0), clientAddresses.get(1));
+    }
+
+    @Test
+    public void get_timesOutWaitingForResponse() throws IOException {
+        server.createContext("/stalled", exchange -> {
+            try {
+                Thread.sleep(5 * READ_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                // Swallow.
+            }
+            reply(exchange, 200, JSON.getBytes(StandardCharsets.UTF_8));
+        });
+
+        long startMillis = System.currentTimeMillis();
+        try {
+            transport.get(url("/stalled"), Collections.emptyMap()).close();
+            fail();
+        } catch (SocketTimeoutException e) {
+            assertTrue(System.currentTimeMillis() - startMillis < 5 * READ_TIMEOUT_MILLIS);
+        }
+    }
+
+    @Test
+    public void get_returnsErrorStatusWithoutThrowing() throws IOException {
+        server.createContext("/error", exchange ->
+                reply(exchange, 500, "Internal error".getBytes(StandardCharsets.UTF_8)));
+
+        try (HttpTransport.Response response =
+                transport.get(url("/error"), Collections.emptyMap())) {
+            assertEquals(500, response.getStatusCode());
+        }
+    }
+
+    @Test
+    public void streamRecords_retriesServerErrorOverHttp() {
+        AtomicInteger requestCount = new AtomicInteger();
+        server.createContext("/flaky", exchange -> {
+            if (requestCount.incrementAndGet() == 1) {
+                reply(exchange, 503, new byte[0]);
+            } else {
+                reply(exchange, 200, JSON.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        JsonFetcher fetcher = new JsonFetcher(transport, new RetryPolicy(2, 1, 1), metrics);
+
+        JsonFetcher.FetchResult result = fetcher.streamRecords(
+                url("/flaky"), HttpValidators.NONE, new SatRecordTypeAdapter(), record -> {})
+                .toBlocking()
+                .value();
+
+        assertEquals(1, result.getRecordCount());
+        assertEquals(2, requestCount.get());
+    }
+
+    @Test
+    public void streamRecords_failsOnNonRetryableStatusOverHttp() {
+        server.createContext("/missing", exchange -> reply(exchange, 404, new byte[0]));
+        JsonFetcher fetcher = new JsonFetcher(transport, new RetryPolicy(2, 1, 1), metrics);
+
+        try {
+            fetcher.streamRecords(
+                    url("/missing"), HttpValidators.NONE, new SatRecordTypeAdapter(),
+                    record -> fail())
+                    .toBlocking()
+                    .value();
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals(404, ((HttpStatusException) e.getCause()).getStatusCode());
+        }
+    }
+
+    /** Serves the JSON at the path, and returns the client address of every request to it. */
+    private List<InetSocketAddress> serveKeepAlive(String path) {
+        List<InetSocketAddress> clientAddresses = Collections.synchronizedList(new ArrayList<>());
+        server.createContext(path, exchange -> {
+            clientAddresses.add(exchange.getRemoteAddress());
+            reply(exchange, 200, JSON.getBytes(StandardCharsets.UTF_8));
+        });
+        return clientAddresses;
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static void reply(HttpExchange exchange, int statusCode, byte[] body)
+            throws IOException {
+        exchange.sendResponseHeaders(statusCode, body.length == 0 ? -1 : body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(gzipped)) {
+            gzipStream.write(bytes);
+        }
+        return gzipped.toByteArray();
+    }
+
+    private static String readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int count;
+        while ((count = inputStream.read(buffer)) > 0) {
+            bytes.write(buffer, 0, count);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
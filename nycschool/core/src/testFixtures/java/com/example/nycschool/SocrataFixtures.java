@@ -0,0 +1,157 @@
+package com.example.nycschool;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates JSON in the shape of the two Socrata data sets the app reads. The base data set has as
+ * many records as the real ones, and a scale repeats it that many times with unique names and DBNs.
+ * Records are generated from a fixed seed so that every run parses exactly the same bytes.
+ *
+ * <p>Like the real data, the SAT data set spells names in upper case with abbreviations, reports
+ * some scores as "s", and has records for schools that are not in the directory.
+ */
+final class SocrataFixtures {
+    // The sizes of the data sets as served by the city.
+    static final int DIRECTORY_RECORDS = 440;
+    static final int SAT_RECORDS = 478;
+
+    private static final String[] BOROUGHS =
+            {"MANHATTAN", "BRONX", "BROOKLYN", "QUEENS", "STATEN IS"};
+    private static final char[] BOROUGH_CODES = {'M', 'X', 'K', 'Q', 'R'};
+    private static final String[] NAME_WORDS = {
+            "Academy", "Arts", "Bronx", "Business", "Careers", "Collegiate", "Community",
+            "Design", "Discovery", "Early", "Environmental", "Global", "Health", "Humanities",
+            "International", "Law", "Leadership", "Math", "Media", "Music", "Preparatory",
+            "Science", "Technology", "Urban", "Writers"};
+    private static final String OVERVIEW_SENTENCE = "Students take part in a rigorous academic "
+            + "program with internships, college visits and advisory groups that prepare them for "
+            + "success in college and careers. ";
+
+    private SocrataFixtures() {}
+
+    /** Returns the directory data set repeated the given number of times as UTF-8 JSON. */
+    static byte[] schoolDirectoryJson(int scale) {
+        StringBuilder json = new StringBuilder(scale * DIRECTORY_RECORDS * 1200);
+        json.append('[');
+        for (int copy = 0; copy < scale; copy++) {
+            Random random = new Random(42);
+            for (int i = 0; i < DIRECTORY_RECORDS; i++) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                int borough = i % BOROUGHS.length;
+                json.append("{\"dbn\":\"").append(dbn(copy, i)).append('"');
+                json.append(",\"school_name\":\"").append(name(copy, i)).append('"');
+                json.append(",\"borough\":\"").append(BOROUGHS[borough]).append(" \"");
+                json.append(",\"overview_paragraph\":\"");
+                for (int sentence = 2 + random.nextInt(5); sentence > 0; sentence--) {
+                    json.append(OVERVIEW_SENTENCE);
+                }
+                json.append('"');
+                // Columns the app does not select, as returned for unfiltered requests.
+                json.append(",\"phone_number\":\"212-555-").append(1000 + i).append('"');
+                json.append(",\"total_students\":\"").append(200 + random.nextInt(2000))
+                        .append('"');
+                json.append(",\"latitude\":\"40.").append(600000 + random.nextInt(300000))
+                        .append('"');
+                json.append('}');
+            }
+        }
+        json.append(']');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Returns the SAT data set repeated the given number of times as UTF-8 JSON. */
+    static byte[] satDataJson(int scale) {
+        StringBuilder json = new StringBuilder(scale * SAT_RECORDS * 220);
+        json.append('[');
+        for (int copy = 0; copy < scale; copy++) {
+            Random random = new Random(42);
+            for (int i = 0; i < SAT_RECORDS; i++) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                String name = name(copy, i).toUpperCase(Locale.US);
+                if (i % 50 == 0) {
+                    // An outdated DBN, so the record can only be matched by name.
+                    json.append("{\"dbn\":\"00").append(dbn(copy, i)).append('"');
+                } else {
+                    json.append("{\"dbn\":\"").append(dbn(copy, i)).append('"');
+                    name = name.replace("ACADEMY", "ACAD").replace("SCIENCE", "SCI")
+                            .replace("&", "AND");
+                }
+                json.append(",\"school_name\":\"").append(name).append('"');
+                boolean isSuppressed = random.nextInt(10) == 0;
+                appendScore(json, "num_of_sat_test_takers", isSuppressed, 10 + random.nextInt(500));
+                appendScore(json, "sat_critical_reading_avg_score", isSuppressed,
+                        300 + random.nextInt(400));
+                appendScore(json, "sat_math_avg_score", isSuppressed, 300 + random.nextInt(400));
+                appendScore(json, "sat_writing_avg_score", isSuppressed,
+                        300 + random.nextInt(400));
+                json.append('}');
+            }
+        }
+        json.append(']');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Parses the directory JSON into a mapping from school name to school. */
+    static HashMap<String, School> parseSchoolDirectory(byte[] json) throws IOException {
+        HashMap<String, School> schools = new HashMap<>();
+        JsonFetcher.readRecords(
+                new ByteArrayInputStream(json),
+                new SchoolTypeAdapter(),
+                school -> schools.put(school.getName(), school));
+        return schools;
+    }
+
+    /** Parses the SAT JSON into a mapping from DBN to SAT record. */
+    static HashMap<String, School> parseSatData(byte[] json) throws IOException {
+        HashMap<String, School> satRecords = new HashMap<>();
+        JsonFetcher.readRecords(
+                new ByteArrayInputStream(json),
+                new SatRecordTypeAdapter(),
+                satRecord -> satRecords.put(satRecord.getDbn().get(), satRecord));
+        return satRecords;
+    }
+
+    private static String dbn(int copy, int i) {
+        String dbn = String.format(
+                Locale.US, "%02d%c%03d", 1 + i % 32, BOROUGH_CODES[i % BOROUGHS.length], i);
+        return copy == 0 ? dbn : dbn + "-" + copy;
+    }
+
+    private static String name(int copy, int i) {
+        // Seeded by the record, so the SAT data set gets the same names as the directory.
+        Random random = new Random(i);
+        StringBuilder name = new StringBuilder();
+        for (int word = 2 + random.nextInt(3); word > 0; word--) {
+            name.append(NAME_WORDS[random.nextInt(NAME_WORDS.length)]).append(' ');
+        }
+        if (random.nextBoolean()) {
+            name.append("& ").append(NAME_WORDS[random.nextInt(NAME_WORDS.length)]).append(' ');
+        }
+        name.append(i % 3 == 0 ? "High School" : "Academy");
+        if (copy > 0) {
+            name.append(' ').append(copy);
+        }
+        // Keep names unique within a copy, as school_name is the key of the directory map.
+        return name.append(" ").append(i).toString();
+    }
+
+    private static void appendScore(
+            StringBuilder json, String column, boolean isSuppressed, int score) {
+        json.append(",\"").append(column).append("\":\"");
+        if (isSuppressed) {
+            json.append('s');
+        } else {
+            json.append(score);
+        }
+        json.append('"');
+    }
+}